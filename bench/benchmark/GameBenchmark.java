@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import model.Game;
+import model.Motorcycle;
+import model.Player;
+
+/**
+ * The GameBenchmark class measures the simulation without a display.
+ * For every combination of arena size, player count and trail length it reports the
+ * time and the bytes allocated per {@link Game#update()} and per {@link Game#checkCollision()}.
+ * <p>
+ * Each scenario is warmed up before it is measured, and the reported value is the best
+ * of several measurement iterations. Run with
+ * {@code java -Djava.awt.headless=true -cp out benchmark.GameBenchmark}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class GameBenchmark {
+    private static final int[] LEVELS = {0, 4, 9};
+    private static final int[] PLAYER_COUNTS = {2, 4, 8, 64};
+    private static final int[] TRAIL_TICKS = {0, 1_000, 4_000};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int TICKS_PER_ITERATION = 2_000;
+    private static final int ROW_SPACING = 12;
+    private static final int CELL_MARGIN = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        System.out.printf("%-6s %-8s %-8s %-9s %12s %12s %14s %14s%n", "level", "arena", "players", "trail",
+                "update ns", "update B", "collision ns", "collision B");
+        for (int level : LEVELS) {
+            for (int players : PLAYER_COUNTS) {
+                for (int trailTicks : TRAIL_TICKS) {
+                    run(level, players, trailTicks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one scenario and prints its results.
+     */
+    private static void run(int level, int playerCount, int trailTicks) {
+        Scenario scenario = new Scenario(level, playerCount);
+        for (int i = 0; i < trailTicks; i++) {
+            scenario.tick();
+        }
+        int trailCells = scenario.trailSegments();
+
+        Result update = null;
+        Result collision = null;
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+            Result u = measure(scenario::tick);
+            Result c = measure(scenario.game::checkCollision);
+            if (i >= WARMUP_ITERATIONS) {
+                update = update == null ? u : update.best(u);
+                collision = collision == null ? c : collision.best(c);
+            }
+        }
+        System.out.printf("%-6d %-8s %-8d %-9s %12.1f %12.1f %14.1f %14.1f%n", level + 1,
+                scenario.game.getMaxWidth() + "x" + scenario.game.getMaxHeight(), playerCount,
+                trailTicks + "/" + trailCells, update.nanos, update.bytes, collision.nanos, collision.bytes);
+    }
+
+    private static Result measure(Runnable operation) {
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS_PER_ITERATION; i++) {
+            operation.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        return new Result((double) nanos / TICKS_PER_ITERATION, (double) bytes / TICKS_PER_ITERATION);
+    }
+
+    /**
+     * A game whose motorcycles sweep their own cell of the arena row by row, so they
+     * grow long trails without colliding. When a cell is full the round starts over.
+     */
+    private static final class Scenario {
+        private final Game game = new Game();
+        private final int[] cellLeft;
+        private final int[] cellRight;
+        private final int[] cellBottom;
+        private final int[] rowTop;
+        private final Motorcycle.Direction[] rowDirection;
+
+        Scenario(int level, int playerCount) {
+            game.setSweptCollision(true);
+            cellLeft = new int[playerCount];
+            cellRight = new int[playerCount];
+            cellBottom = new int[playerCount];
+            rowTop = new int[playerCount];
+            rowDirection = new Motorcycle.Direction[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                game.addPlayer(new Player("bot" + i, Color.getHSBColor((float) i / playerCount, 0.8f, 1f),
+                        new Point(0, 0), Motorcycle.Direction.RIGHT));
+            }
+            game.selectLevel(level);
+            placePlayers();
+        }
+
+        /**
+         * Splits the arena into a grid with a cell for every motorcycle and puts each
+         * motorcycle at the top left corner of its cell.
+         */
+        private void placePlayers() {
+            List<Player> players = game.getPlayers();
+            int columns = (int) Math.ceil(Math.sqrt(players.size()));
+            int rows = (players.size() + columns - 1) / columns;
+            int cellWidth = game.getMaxWidth() / columns;
+            int cellHeight = game.getMaxHeight() / rows;
+            for (int i = 0; i < players.size(); i++) {
+                Motorcycle motorcycle = players.get(i).getMotorcycle();
+                cellLeft[i] = (i % columns) * cellWidth;
+                cellRight[i] = cellLeft[i] + cellWidth - CELL_MARGIN;
+                rowTop[i] = (i / columns) * cellHeight;
+                cellBottom[i] = rowTop[i] + cellHeight - CELL_MARGIN;
+                rowDirection[i] = Motorcycle.Direction.RIGHT;
+                motorcycle.setStartPosition(new Point(cellLeft[i], rowTop[i]));
+                motorcycle.setStartDirection(Motorcycle.Direction.RIGHT);
+                motorcycle.reset();
+            }
+        }
+
+        void tick() {
+            List<Player> players = game.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                if (!steer(i, players.get(i).getMotorcycle())) {
+                    game.reset();
+                    placePlayers();
+                    return;
+                }
+            }
+            game.update();
+        }
+
+        /**
+         * Turns the motorcycle at the ends of its row.
+         *
+         * @return false if the cell is full.
+         */
+        private boolean steer(int index, Motorcycle motorcycle) {
+            int speed = motorcycle.getSpeed();
+            if (motorcycle.getDirection() == Motorcycle.Direction.DOWN) {
+                if (motorcycle.getY() - rowTop[index] >= ROW_SPACING) {
+                    rowTop[index] = motorcycle.getY();
+                    rowDirection[index] = rowDirection[index] == Motorcycle.Direction.RIGHT
+                            ? Motorcycle.Direction.LEFT : Motorcycle.Direction.RIGHT;
+                    motorcycle.changeDirection(rowDirection[index]);
+                }
+                return true;
+            }
+            boolean atEnd = rowDirection[index] == Motorcycle.Direction.RIGHT
+                    ? motorcycle.getX() + speed > cellRight[index]
+                    : motorcycle.getX() - speed < cellLeft[index];
+            if (atEnd) {
+                if (motorcycle.getY() + ROW_SPACING + speed > cellBottom[index]) {
+                    return false;
+                }
+                motorcycle.changeDirection(Motorcycle.Direction.DOWN);
+            }
+            return true;
+        }
+
+        int trailSegments() {
+            int segments = 0;
+            for (Player player : game.getPlayers()) {
+                segments += player.getMotorcycle().getTrail().getSegmentCount();
+            }
+            return segments;
+        }
+    }
+
+    private static final class Result {
+        private final double nanos;
+        private final double bytes;
+
+        Result(double nanos, double bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        Result best(Result other) {
+            return other.nanos < nanos ? other : this;
+        }
+    }
+}
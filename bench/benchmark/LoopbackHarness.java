@@ -0,0 +1,138 @@
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Game;
+import model.Motorcycle;
+import model.Player;
+import model.SimpleBot;
+import network.Delta;
+import network.GameClient;
+import network.GameServer;
+import network.Protocol;
+
+/**
+ * The LoopbackHarness class runs a game server and many bot clients in one process,
+ * connected over the loopback interface. Every client rebuilds its matches from the
+ * deltas it receives and checks its copy against the final positions sent by the server.
+ * The harness reports the tick time and bandwidth of each match and the bytes each
+ * client received per tick.
+ * <p>
+ * Before the clients connect, the harness plays a scripted four player match in which one
+ * player is eliminated by a head-on collision before its own move, and checks that a copy
+ * built from the deltas stays in step with it every tick.
+ * <p>
+ * Options: {@code --clients=N --players=N --matches=N --level=N --tick-rate=N}. Run with
+ * {@code java -Djava.awt.headless=true -cp out benchmark.LoopbackHarness}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class LoopbackHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        int clientCount = Integer.parseInt(options.getOrDefault("clients", "8"));
+        int playersPerMatch = Integer.parseInt(options.getOrDefault("players", "2"));
+        int matches = Integer.parseInt(options.getOrDefault("matches", "5"));
+        int level = Integer.parseInt(options.getOrDefault("level", "1")) - 1;
+        int tickRate = Integer.parseInt(options.getOrDefault("tick-rate", "600"));
+
+        checkHeadOn();
+
+        GameServer server = new GameServer(0, playersPerMatch, level, tickRate,
+                Runtime.getRuntime().availableProcessors());
+        server.start();
+
+        long start = System.nanoTime();
+        List<GameClient> clients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            GameClient client = new GameClient("localhost", server.getPort(), "bot" + (i + 1),
+                    Color.getHSBColor((float) i / clientCount, 0.8f, 1f), new SimpleBot(i, 0.02), matches);
+            Thread thread = new Thread(client, "client-" + (i + 1));
+            thread.start();
+            clients.add(client);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (String line : server.drainFinishedReports()) {
+            System.out.println(line);
+        }
+        long bytes = 0;
+        long deltas = 0;
+        int mismatches = 0;
+        int played = 0;
+        for (GameClient client : clients) {
+            bytes += client.getBytesReceived();
+            deltas += client.getDeltasReceived();
+            mismatches += client.getMismatches();
+            played += client.getMatchesPlayed();
+        }
+        System.out.printf("%d clients played %d matches in %.2fs: %.2f bytes per tick per client, %d position mismatches%n",
+                clientCount, played, seconds, deltas == 0 ? 0.0 : (double) bytes / deltas, mismatches);
+        server.stop();
+    }
+
+    /**
+     * Plays four players where the first two drive into each other, so the second is eliminated
+     * by the first one's move before it moves itself, and compares every motorcycle of the
+     * server's game with the copy built from the deltas after each tick.
+     */
+    private static void checkHeadOn() {
+        Point[] spawns = {new Point(100, 100), new Point(160, 100), new Point(100, 300), new Point(100, 400)};
+        Motorcycle.Direction[] directions = {Motorcycle.Direction.RIGHT, Motorcycle.Direction.LEFT,
+                Motorcycle.Direction.RIGHT, Motorcycle.Direction.RIGHT};
+        Game server = headOnGame(spawns, directions);
+        Game client = headOnGame(spawns, directions);
+        Delta delta = new Delta(spawns.length);
+        ByteBuffer encoder = ByteBuffer.allocate(Protocol.MAX_MESSAGE_SIZE);
+        int mismatches = 0;
+        while (!server.isGameOver() && server.getTick() < 10_000) {
+            delta.recordBefore(server);
+            server.update();
+            encoder.clear();
+            delta.write(encoder, server);
+            encoder.flip();
+            Delta.apply(encoder, client);
+            for (int i = 0; i < spawns.length; i++) {
+                if (!server.getPlayers().get(i).getMotorcycle().getPosition()
+                        .equals(client.getPlayers().get(i).getMotorcycle().getPosition())) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.printf("head-on case: %d ticks, %d position mismatches%n", server.getTick(), mismatches);
+    }
+
+    private static Game headOnGame(Point[] spawns, Motorcycle.Direction[] directions) {
+        Game game = new Game();
+        for (int i = 0; i < spawns.length; i++) {
+            game.addPlayer(new Player("p" + i, Color.getHSBColor((float) i / spawns.length, 0.8f, 1f),
+                    new Point(spawns[i]), directions[i]));
+        }
+        game.selectLevel(0);
+        for (int i = 0; i < spawns.length; i++) {
+            Motorcycle motorcycle = game.getPlayers().get(i).getMotorcycle();
+            motorcycle.setStartPosition(spawns[i]);
+            motorcycle.setStartDirection(directions[i]);
+            game.getPlayers().get(i).reset();
+        }
+        game.start();
+        return game;
+    }
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import controller.TickScheduler;
+import java.awt.Color;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import model.Game;
+import model.Motorcycle;
+import model.Player;
+import model.SimpleBot;
+
+/**
+ * The SchedulerBenchmark class runs hundreds of bot games on a {@link TickScheduler} and
+ * reports how well their tick deadlines are kept. Optionally one game is overloaded with a
+ * tick slower than its period, to show that it does not delay the others.
+ * <p>
+ * Options: {@code --games=N --workers=N --tick-rate=N --seconds=N --overloaded-millis=N}.
+ * Run with {@code java -Djava.awt.headless=true -cp out benchmark.SchedulerBenchmark}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class SchedulerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        int gameCount = Integer.parseInt(options.getOrDefault("games", "500"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int tickRate = Integer.parseInt(options.getOrDefault("tick-rate", "60"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        long overloadedNanos = Long.parseLong(options.getOrDefault("overloaded-millis", "50")) * 1_000_000L;
+
+        TickScheduler scheduler = new TickScheduler(workers);
+        scheduler.start();
+        List<TickScheduler.ScheduledTicks> scheduled = new ArrayList<>();
+        for (int i = 0; i < gameCount; i++) {
+            Game game = createGame(i);
+            scheduled.add(scheduler.schedule(() -> {
+                game.update();
+                if (game.isGameOver()) {
+                    game.reset();
+                }
+            }, tickRate));
+        }
+        TickScheduler.ScheduledTicks overloaded = null;
+        if (overloadedNanos > 0) {
+            Game game = createGame(gameCount);
+            overloaded = scheduler.schedule(() -> {
+                game.update();
+                if (game.isGameOver()) {
+                    game.reset();
+                }
+                LockSupport.parkNanos(overloadedNanos);
+            }, tickRate);
+        }
+
+        Thread.sleep(seconds * 1000L);
+        for (TickScheduler.ScheduledTicks ticks : scheduled) {
+            ticks.cancel();
+        }
+        if (overloaded != null) {
+            overloaded.cancel();
+        }
+        scheduler.shutdown();
+
+        long ticks = 0;
+        long overruns = 0;
+        long dropped = 0;
+        double maxLateness = 0;
+        for (TickScheduler.ScheduledTicks game : scheduled) {
+            ticks += game.getTicks();
+            overruns += game.getOverruns();
+            dropped += game.getDroppedTicks();
+            maxLateness = Math.max(maxLateness, game.getMaxLatenessMillis());
+        }
+        long expected = (long) gameCount * tickRate * seconds;
+        System.out.printf("%d games on %d workers at %d ticks/s: %d of %d ticks (%.1f%%), %d overruns, %d dropped ticks, %.2fms max lateness%n",
+                gameCount, workers, tickRate, ticks, expected, 100.0 * ticks / expected, overruns, dropped, maxLateness);
+        if (overloaded != null) {
+            System.out.printf("overloaded game: %d ticks, %d overruns, %d dropped ticks, %.2fms average tick%n",
+                    overloaded.getTicks(), overloaded.getOverruns(), overloaded.getDroppedTicks(),
+                    overloaded.getAverageTickMillis());
+        }
+    }
+
+    private static Game createGame(int seed) {
+        Game game = new Game();
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player("bot" + (i + 1), i == 0 ? Color.BLUE : Color.RED, new Point(0, 0),
+                    Motorcycle.Direction.RIGHT);
+            player.setController(new SimpleBot(seed * 31L + i, 0.02));
+            game.addPlayer(player);
+        }
+        game.selectLevel(seed % game.getLevelCount());
+        return game;
+    }
+}
@@ -2,20 +2,42 @@
 package controller;
 
 import model.Game;
-import view.Board;
+import view.GameView;
 
 public class GameController {
     private final Game game;
-    private final Board gameBoard;
+    private final GameView gameBoard;
 
-    public GameController(Game game, Board gameBoard) {
+    public GameController(Game game, GameView gameBoard) {
         this.game = game;
         this.gameBoard = gameBoard;
     }
 
+    /**
+     * Advances the game by one simulation tick.
+     */
     public void updateGame() {
-        game.update();
-        gameBoard.repaint();
+        synchronized (game) {
+            if (!game.isGameOver()) {
+                game.update();
+            }
+        }
+    }
+
+    /**
+     * Repaints the board for the given position between two ticks.
+     *
+     * @param interpolation how far the simulation is towards the next tick.
+     */
+    public void renderGame(double interpolation) {
+        gameBoard.render(interpolation);
+    }
+
+    /**
+     * Shows the debug overlay if it is hidden, hides it otherwise.
+     */
+    public void toggleDebugOverlay() {
+        gameBoard.setDebugOverlay(!gameBoard.isDebugOverlay());
     }
 
     public Game getGame() {
@@ -0,0 +1,177 @@
+package controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+
+/**
+ * The GameLoop class runs the simulation on its own thread at a fixed tick rate.
+ * Elapsed time is collected in an accumulator and consumed in whole ticks, so the game
+ * speed does not depend on how busy the event dispatch thread is. Frames are requested
+ * separately at the frame rate, together with how far the simulation is between two ticks.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class GameLoop implements Runnable {
+
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_FRAME_RATE = 60;
+    private static final int MAX_TICKS_PER_STEP = 5;
+
+    private final GameController gameController;
+    private final Runnable frameRenderer;
+    private final Runnable gameOverHandler;
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private volatile int tickRate = DEFAULT_TICK_RATE;
+    private volatile int frameRate = DEFAULT_FRAME_RATE;
+    private volatile double interpolation;
+    private volatile long interpolationTime;
+    private volatile boolean running;
+    private volatile double measuredTickRate;
+    private volatile double measuredFrameRate;
+    private Thread thread;
+
+    /**
+     * @param gameController the controller whose game is simulated.
+     * @param frameRenderer renders a frame, always called on the event dispatch thread.
+     * @param gameOverHandler called on the event dispatch thread when a round ends.
+     */
+    public GameLoop(GameController gameController, Runnable frameRenderer, Runnable gameOverHandler) {
+        this.gameController = gameController;
+        this.frameRenderer = frameRenderer;
+        this.gameOverHandler = gameOverHandler;
+    }
+
+    /**
+     * Starts the simulation thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread and waits for it to finish.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        long previousTime = System.nanoTime();
+        long nextFrameTime = previousTime;
+        long accumulator = 0;
+        long statsStart = previousTime;
+        int ticks = 0;
+        int frames = 0;
+        boolean wasGameOver = gameController.getGame().isGameOver();
+
+        while (running) {
+            long tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+            long frameNanos = TimeUnit.SECONDS.toNanos(1) / frameRate;
+            long now = System.nanoTime();
+            accumulator = Math.min(accumulator + now - previousTime, MAX_TICKS_PER_STEP * tickNanos);
+            previousTime = now;
+
+            boolean gameOver = gameController.getGame().isGameOver();
+            if (gameOver) {
+                accumulator = 0;
+            }
+            while (!gameOver && accumulator >= tickNanos) {
+                gameController.updateGame();
+                accumulator -= tickNanos;
+                ticks++;
+                gameOver = gameController.getGame().isGameOver();
+            }
+            if (gameOver && !wasGameOver) {
+                SwingUtilities.invokeLater(gameOverHandler);
+            }
+            wasGameOver = gameOver;
+
+            interpolation = gameOver ? 1.0 : (double) accumulator / tickNanos;
+            interpolationTime = now;
+            if (now - nextFrameTime >= 0) {
+                nextFrameTime = now + frameNanos;
+                if (framePending.compareAndSet(false, true)) {
+                    frames++;
+                    SwingUtilities.invokeLater(this::renderFrame);
+                }
+            }
+
+            if (now - statsStart >= TimeUnit.SECONDS.toNanos(1)) {
+                double seconds = (now - statsStart) / (double) TimeUnit.SECONDS.toNanos(1);
+                measuredTickRate = ticks / seconds;
+                measuredFrameRate = frames / seconds;
+                statsStart = now;
+                ticks = 0;
+                frames = 0;
+            }
+
+            long untilTick = tickNanos - accumulator;
+            long untilFrame = nextFrameTime - System.nanoTime();
+            LockSupport.parkNanos(Math.max(0, Math.min(untilTick, untilFrame)));
+        }
+    }
+
+    private void renderFrame() {
+        framePending.set(false);
+        frameRenderer.run();
+    }
+
+    /**
+     * Returns how far the simulation has progressed towards the next tick, counting the time
+     * since the loop last woke up, so renderers running faster than the loop still move smoothly.
+     *
+     * @return a value between 0 (at the last tick) and 1 (at the next tick).
+     */
+    public double getInterpolation() {
+        double elapsedTicks = (System.nanoTime() - interpolationTime) * (double) tickRate / TimeUnit.SECONDS.toNanos(1);
+        return Math.max(0.0, Math.min(1.0, interpolation + elapsedTicks));
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public void setTickRate(int tickRate) {
+        this.tickRate = Math.max(1, tickRate);
+    }
+
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    public void setFrameRate(int frameRate) {
+        this.frameRate = Math.max(1, frameRate);
+    }
+
+    /**
+     * @return the number of simulation ticks run during the last second.
+     */
+    public double getMeasuredTickRate() {
+        return measuredTickRate;
+    }
+
+    /**
+     * @return the number of frames requested during the last second.
+     */
+    public double getMeasuredFrameRate() {
+        return measuredFrameRate;
+    }
+}
@@ -6,7 +6,9 @@ import model.Motorcycle;
 
 /**
  * The InputHandler class handles keyboard input for player control.
- * 
+ * Key presses are submitted to the game's input queue and applied at the start of the next tick.
+ * F3 shows or hides the debug overlay.
+ *
  * @author Isroilbek Jamolov
  */
 public class InputHandler extends KeyAdapter {
@@ -19,58 +21,35 @@ public class InputHandler extends KeyAdapter {
 
     @Override
     public void keyPressed(KeyEvent e) {
-        int key = e.getKeyCode();
-
-        if (gameController.getGame().getPlayers().size() < 2) {
-            return;
-        }
+        handleKey(e.getKeyCode());
+    }
 
-        Motorcycle.Direction currentDirection = gameController.getGame().getPlayers().get(0).getMotorcycle().getDirection();
-        Motorcycle.Direction currentDirection2 = gameController.getGame().getPlayers().get(1).getMotorcycle().getDirection();
+    /**
+     * Requests a turn for the motorcycle controlled by the given key.
+     *
+     * @param key the code of the pressed key.
+     */
+    private void handleKey(int key) {
         switch (key) {
             // Player 1 controls
-            case KeyEvent.VK_W -> {
-                if (currentDirection != Motorcycle.Direction.DOWN) {
-                    gameController.getGame().getPlayers().get(0).getMotorcycle().changeDirection(Motorcycle.Direction.UP);
-                }
-            }
-            case KeyEvent.VK_S -> {
-                if (currentDirection != Motorcycle.Direction.UP) {
-                    gameController.getGame().getPlayers().get(0).getMotorcycle().changeDirection(Motorcycle.Direction.DOWN);
-                }
-            }
-            case KeyEvent.VK_A -> {
-                if (currentDirection != Motorcycle.Direction.RIGHT) {
-                    gameController.getGame().getPlayers().get(0).getMotorcycle().changeDirection(Motorcycle.Direction.LEFT);
-                }
-            }
-            case KeyEvent.VK_D -> {
-                if (currentDirection != Motorcycle.Direction.LEFT) {
-                    gameController.getGame().getPlayers().get(0).getMotorcycle().changeDirection(Motorcycle.Direction.RIGHT);
-                }
-            }
+            case KeyEvent.VK_W -> turn(0, Motorcycle.Direction.UP);
+            case KeyEvent.VK_S -> turn(0, Motorcycle.Direction.DOWN);
+            case KeyEvent.VK_A -> turn(0, Motorcycle.Direction.LEFT);
+            case KeyEvent.VK_D -> turn(0, Motorcycle.Direction.RIGHT);
 
             // Player 2 controls
-            case KeyEvent.VK_UP -> {
-                if (currentDirection2 != Motorcycle.Direction.DOWN) {
-                    gameController.getGame().getPlayers().get(1).getMotorcycle().changeDirection(Motorcycle.Direction.UP);
-                }
-            }
-            case KeyEvent.VK_DOWN -> {
-                if (currentDirection2 != Motorcycle.Direction.UP) {
-                    gameController.getGame().getPlayers().get(1).getMotorcycle().changeDirection(Motorcycle.Direction.DOWN);
-                }
-            }
-            case KeyEvent.VK_LEFT -> {
-                if (currentDirection2 != Motorcycle.Direction.RIGHT) {
-                    gameController.getGame().getPlayers().get(1).getMotorcycle().changeDirection(Motorcycle.Direction.LEFT);
-                }
-            }
-            case KeyEvent.VK_RIGHT -> {
-                if (currentDirection2 != Motorcycle.Direction.LEFT) {
-                    gameController.getGame().getPlayers().get(1).getMotorcycle().changeDirection(Motorcycle.Direction.RIGHT);
-                }
+            case KeyEvent.VK_UP -> turn(1, Motorcycle.Direction.UP);
+            case KeyEvent.VK_DOWN -> turn(1, Motorcycle.Direction.DOWN);
+            case KeyEvent.VK_LEFT -> turn(1, Motorcycle.Direction.LEFT);
+            case KeyEvent.VK_RIGHT -> turn(1, Motorcycle.Direction.RIGHT);
+
+            case KeyEvent.VK_F3 -> gameController.toggleDebugOverlay();
+            default -> {
             }
         }
     }
+
+    private void turn(int playerIndex, Motorcycle.Direction direction) {
+        gameController.getGame().getInputQueue().submit(playerIndex, direction);
+    }
 }
@@ -0,0 +1,262 @@
+package controller;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The TickScheduler class runs the ticks of many games on a small pool of worker threads
+ * instead of giving every game its own timer thread. A single timer thread hands each tick
+ * to a work-stealing pool when it is due, and every tick runs as a task of its own. A game
+ * with a slow tick therefore only holds up the worker running it, while the other workers
+ * keep ticking the other games in the order their ticks are due.
+ * <p>
+ * A tick must finish before the next one of its game is due, otherwise it counts as an
+ * overrun. The next tick of an overrunning game is scheduled for the first slot after the
+ * overrun ended and the slots it ran past are dropped. Catching up instead would keep the
+ * game's next tick overdue, so it would stay at the head of the queue and take the workers
+ * from every game that is on time; this way an overloaded game slows down on its own.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class TickScheduler implements Runnable {
+
+    private final ForkJoinPool workers;
+    private final PriorityQueue<ScheduledTicks> timers =
+            new PriorityQueue<>(Comparator.comparingLong(ScheduledTicks::getNextTickAt));
+    private final Thread timerThread;
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong overrunCount = new AtomicLong();
+    private final AtomicLong droppedTickCount = new AtomicLong();
+    private volatile boolean running;
+
+    /**
+     * @param workerCount the number of worker threads running ticks.
+     */
+    public TickScheduler(int workerCount) {
+        workers = new ForkJoinPool(workerCount, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("tick-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+        timerThread = new Thread(this, "tick-scheduler");
+        timerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the timer thread.
+     */
+    public void start() {
+        running = true;
+        timerThread.start();
+    }
+
+    /**
+     * Stops scheduling ticks. Ticks already running are allowed to finish.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(timerThread);
+        workers.shutdown();
+    }
+
+    /**
+     * Schedules the ticks of a game at a fixed rate. The first tick is due one period from now.
+     *
+     * @param tick plays one tick of the game.
+     * @param tickRate the number of ticks per second.
+     * @return the handle to cancel the ticks and read their metrics.
+     */
+    public ScheduledTicks schedule(Runnable tick, int tickRate) {
+        long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, tickRate);
+        ScheduledTicks ticks = new ScheduledTicks(tick, period, System.nanoTime() + period);
+        enqueue(ticks);
+        return ticks;
+    }
+
+    /**
+     * Hands due ticks to the workers until the scheduler is shut down.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            ScheduledTicks due = null;
+            long wait;
+            synchronized (timers) {
+                ScheduledTicks next = timers.peek();
+                wait = next == null ? TimeUnit.SECONDS.toNanos(1) : next.getNextTickAt() - System.nanoTime();
+                if (next != null && wait <= 0) {
+                    due = timers.poll();
+                }
+            }
+            if (due != null) {
+                workers.execute(due);
+            } else {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void enqueue(ScheduledTicks ticks) {
+        boolean first;
+        synchronized (timers) {
+            timers.add(ticks);
+            first = timers.peek() == ticks;
+        }
+        if (first) {
+            LockSupport.unpark(timerThread);
+        }
+    }
+
+    private void remove(ScheduledTicks ticks) {
+        synchronized (timers) {
+            timers.remove(ticks);
+        }
+    }
+
+    /**
+     * @return the number of games with scheduled ticks.
+     */
+    public int getScheduledCount() {
+        synchronized (timers) {
+            return timers.size();
+        }
+    }
+
+    public long getTickCount() {
+        return tickCount.get();
+    }
+
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    public long getDroppedTickCount() {
+        return droppedTickCount.get();
+    }
+
+    /**
+     * The ScheduledTicks class represents the ticks of one game and their metrics.
+     */
+    public final class ScheduledTicks implements Runnable {
+        private static final double SMOOTHING = 0.05;
+        private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+        private final Runnable tick;
+        private final long period;
+        private long nextTickAt;
+        private volatile boolean cancelled;
+
+        private long ticks;
+        private long overruns;
+        private long droppedTicks;
+        private double averageTickNanos;
+        private long maxTickNanos;
+        private long maxLatenessNanos;
+
+        ScheduledTicks(Runnable tick, long period, long firstTickAt) {
+            this.tick = tick;
+            this.period = period;
+            this.nextTickAt = firstTickAt;
+        }
+
+        /**
+         * Plays one tick on a worker and schedules the next one.
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            long scheduledAt = nextTickAt;
+            long start = System.nanoTime();
+            try {
+                tick.run();
+            } catch (RuntimeException e) {
+                System.out.println("tick error: " + e.getMessage());
+                e.printStackTrace();
+                cancel();
+                return;
+            }
+            long end = System.nanoTime();
+
+            long slots = Math.max(0, end - scheduledAt) / period + 1;
+            nextTickAt = scheduledAt + slots * period;
+            record(end - start, start - scheduledAt, slots > 1, slots - 1);
+
+            if (!cancelled) {
+                enqueue(this);
+            }
+        }
+
+        private void record(long tickNanos, long latenessNanos, boolean overrun, long dropped) {
+            synchronized (this) {
+                ticks++;
+                averageTickNanos = ticks == 1 ? tickNanos : averageTickNanos + SMOOTHING * (tickNanos - averageTickNanos);
+                maxTickNanos = Math.max(maxTickNanos, tickNanos);
+                maxLatenessNanos = Math.max(maxLatenessNanos, latenessNanos);
+                if (overrun) {
+                    overruns++;
+                }
+                droppedTicks += dropped;
+            }
+            tickCount.incrementAndGet();
+            if (overrun) {
+                overrunCount.incrementAndGet();
+            }
+            if (dropped > 0) {
+                droppedTickCount.addAndGet(dropped);
+            }
+        }
+
+        /**
+         * Stops the ticks. A tick that is already running is allowed to finish.
+         */
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        long getNextTickAt() {
+            return nextTickAt;
+        }
+
+        public synchronized long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * @return the number of ticks that finished after the next tick was due.
+         */
+        public synchronized long getOverruns() {
+            return overruns;
+        }
+
+        /**
+         * @return the number of ticks skipped because an earlier tick ran past them.
+         */
+        public synchronized long getDroppedTicks() {
+            return droppedTicks;
+        }
+
+        public synchronized double getAverageTickMillis() {
+            return averageTickNanos / NANOS_PER_MILLI;
+        }
+
+        public synchronized double getMaxTickMillis() {
+            return maxTickNanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * @return the longest time a tick waited for a worker after it was due.
+         */
+        public synchronized double getMaxLatenessMillis() {
+            return maxLatenessNanos / NANOS_PER_MILLI;
+        }
+    }
+}
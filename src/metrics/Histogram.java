@@ -0,0 +1,240 @@
+package metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The Histogram class records the distribution of non-negative values, such as durations
+ * in nanoseconds, with a fixed relative precision. Values are counted in buckets whose width
+ * grows with the value, 32 buckets per power of two, so every percentile is accurate to about
+ * 3% while the histogram stays a fixed array of counters. Recording a value never allocates,
+ * so it can be called from any thread on hot paths.
+ * <p>
+ * Every recording thread counts into a shard of its own, with plain increments instead of
+ * atomic ones, so threads never contend and a single thread pays no more than for ordinary
+ * arithmetic. Reading the histogram adds the shards up. The shards of threads that have ended
+ * are folded into one, and {@link #reset()} only moves the histogram to a new generation,
+ * which every thread applies to its own shard the next time it records.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+    private static final int COUNT = BUCKET_COUNT;
+    private static final int SUM = BUCKET_COUNT + 1;
+    private static final int MAX = BUCKET_COUNT + 2;
+    private static final int SLOT_COUNT = BUCKET_COUNT + 3;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final boolean duration;
+    private final ThreadLocal<Shard> shard = ThreadLocal.withInitial(this::addShard);
+    private final List<Shard> shards = new ArrayList<>();
+    private final long[] ended = new long[SLOT_COUNT];
+    private volatile int generation;
+
+    /**
+     * @param name the name of the recorded value.
+     * @param duration true if the values are durations in nanoseconds.
+     */
+    public Histogram(String name, boolean duration) {
+        this.name = name;
+        this.duration = duration;
+    }
+
+    /**
+     * Records a value. Negative values are counted as zero.
+     *
+     * @param value the value.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        Shard own = shard.get();
+        int current = generation;
+        if (own.generation != current) {
+            own.clear(current);
+        }
+        long[] slots = own.slots;
+        int bucket = bucketOf(v);
+        SLOT.setOpaque(slots, bucket, slots[bucket] + 1);
+        SLOT.setOpaque(slots, COUNT, slots[COUNT] + 1);
+        SLOT.setOpaque(slots, SUM, slots[SUM] + v);
+        if (v > slots[MAX]) {
+            SLOT.setOpaque(slots, MAX, v);
+        }
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values fall.
+     *
+     * @param percentile the share, between 0 and 100.
+     * @return the value, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        return percentile(snapshot(), percentile);
+    }
+
+    private static long percentile(long[] totals, double percentile) {
+        long total = totals[COUNT];
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += totals[i];
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), totals[MAX]);
+            }
+        }
+        return totals[MAX];
+    }
+
+    public long getCount() {
+        return snapshot()[COUNT];
+    }
+
+    public long getMax() {
+        return snapshot()[MAX];
+    }
+
+    public double getMean() {
+        return mean(snapshot());
+    }
+
+    private static double mean(long[] totals) {
+        return totals[COUNT] == 0 ? 0 : (double) totals[SUM] / totals[COUNT];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the values are durations in nanoseconds.
+     */
+    public boolean isDuration() {
+        return duration;
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public synchronized void reset() {
+        Arrays.fill(ended, 0);
+        generation++;
+    }
+
+    /**
+     * Describes the histogram in one line, with durations in milliseconds.
+     */
+    @Override
+    public String toString() {
+        long[] totals = snapshot();
+        if (duration) {
+            return String.format("%s: n=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", name, totals[COUNT],
+                    mean(totals) / NANOS_PER_MILLI, percentile(totals, 50) / NANOS_PER_MILLI,
+                    percentile(totals, 99) / NANOS_PER_MILLI, totals[MAX] / NANOS_PER_MILLI);
+        }
+        return String.format("%s: n=%d mean=%.1f p50=%d p99=%d max=%d", name, totals[COUNT], mean(totals),
+                percentile(totals, 50), percentile(totals, 99), totals[MAX]);
+    }
+
+    private synchronized Shard addShard() {
+        foldEndedShards();
+        Shard created = new Shard(Thread.currentThread(), generation);
+        shards.add(created);
+        return created;
+    }
+
+    /**
+     * Adds up the shards of the current generation.
+     *
+     * @return the bucket counts followed by the count, sum and maximum.
+     */
+    private synchronized long[] snapshot() {
+        foldEndedShards();
+        long[] totals = ended.clone();
+        int current = generation;
+        for (Shard each : shards) {
+            if (each.generation == current) {
+                add(totals, each.slots);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Moves the counts of threads that have ended into {@link #ended}. Their shards are no
+     * longer written, so they can be read without a race and dropped.
+     */
+    private void foldEndedShards() {
+        for (Iterator<Shard> iterator = shards.iterator(); iterator.hasNext(); ) {
+            Shard each = iterator.next();
+            if (!each.owner.isAlive()) {
+                if (each.generation == generation) {
+                    add(ended, each.slots);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void add(long[] totals, long[] slots) {
+        for (int i = 0; i < MAX; i++) {
+            totals[i] += (long) SLOT.getOpaque(slots, i);
+        }
+        totals[MAX] = Math.max(totals[MAX], (long) SLOT.getOpaque(slots, MAX));
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int top = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (top - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (top - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int top = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKET_COUNT;
+        long width = 1L << (top - SUB_BUCKET_BITS);
+        return ((SUB_BUCKET_COUNT + subBucket) << (top - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    /**
+     * The Shard class represents the counts recorded by one thread. Only that thread writes them.
+     */
+    private static final class Shard {
+        private final Thread owner;
+        private final long[] slots = new long[SLOT_COUNT];
+        private volatile int generation;
+
+        Shard(Thread owner, int generation) {
+            this.owner = owner;
+            this.generation = generation;
+        }
+
+        /**
+         * Zeroes the counts before publishing the new generation, so a reader that sees the
+         * generation also sees the zeroes.
+         */
+        void clear(int newGeneration) {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                SLOT.setOpaque(slots, i, 0L);
+            }
+            generation = newGeneration;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * The Metrics class holds the counters and histograms measured on the hot paths of the game:
+ * how long a tick, a collision check, a paint and a database call take, how many trail segments
+ * are drawn and how many bytes a tick allocates. Every metric is created once under its name and
+ * is kept in static fields by the code that records it, so recording never looks anything up.
+ * <p>
+ * Metrics are on unless the property {@code -Dtron.metrics=false} is set. They can be read in
+ * the game's debug overlay, dumped to the console periodically and read over JMX under
+ * {@value #OBJECT_NAME}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public final class Metrics {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("tron.metrics"));
+    public static final String OBJECT_NAME = "tron:type=Metrics";
+
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = initAllocationCounting();
+    private static Thread logger;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the histogram of durations in nanoseconds with the given name, creating it if needed.
+     *
+     * @param name the name of the timed operation.
+     * @return the histogram.
+     */
+    public static Histogram timer(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram(key, true));
+    }
+
+    /**
+     * Returns the histogram of plain values with the given name, creating it if needed.
+     *
+     * @param name the name of the value.
+     * @return the histogram.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram(key, false));
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     *
+     * @param name the name of the counter.
+     * @return the counter.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far. The difference between
+     * two calls is what the thread allocated in between.
+     *
+     * @return the number of bytes, or -1 if the JVM cannot count them.
+     */
+    public static long allocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+    }
+
+    private static boolean initAllocationCounting() {
+        if (!ENABLED || !(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return true;
+    }
+
+    /**
+     * Describes every metric in one line each, ordered by name.
+     *
+     * @return the lines.
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            if (histogram.getCount() > 0) {
+                lines.add(histogram.toString());
+            }
+        }
+        for (Map.Entry<String, LongAdder> counter : COUNTERS.entrySet()) {
+            lines.add(counter.getKey() + ": " + counter.getValue().sum());
+        }
+        return lines;
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+        for (LongAdder counter : COUNTERS.values()) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Prints the report to the console periodically on a daemon thread. Does nothing if the
+     * metrics are off or already being printed.
+     *
+     * @param periodSeconds the number of seconds between two reports.
+     */
+    public static synchronized void startLogging(int periodSeconds) {
+        if (!ENABLED || logger != null || periodSeconds <= 0) {
+            return;
+        }
+        logger = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(periodSeconds * 1000L);
+                    System.out.println("metrics:");
+                    for (String line : report()) {
+                        System.out.println("  " + line);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "metrics-logger");
+        logger.setDaemon(true);
+        logger.start();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, so they can be read with JConsole or
+     * any other JMX client. Every histogram is exposed as the attributes {@code name.count},
+     * {@code name.mean}, {@code name.p50}, {@code name.p99} and {@code name.max}, every counter
+     * as an attribute of its own name. Does nothing if the metrics are off or already registered.
+     */
+    public static synchronized void registerMBean() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.out.println("metrics error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The MetricsMBean class exposes the current metrics as read-only JMX attributes. The
+     * attributes are listed anew on every request, so metrics created after registration show up.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+        private static final String[] STATISTICS = {"count", "mean", "p50", "p99", "max"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder counter = COUNTERS.get(attribute);
+            if (counter != null) {
+                return counter.sum();
+            }
+            int dot = attribute.lastIndexOf('.');
+            Histogram histogram = dot < 0 ? null : HISTOGRAMS.get(attribute.substring(0, dot));
+            if (histogram == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return (double) histogram.getCount();
+                case "mean":
+                    return histogram.getMean();
+                case "p50":
+                    return (double) histogram.getPercentile(50);
+                case "p99":
+                    return (double) histogram.getPercentile(99);
+                case "max":
+                    return (double) histogram.getMax();
+                default:
+                    throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Attributes that do not exist are left out, as the JMX contract allows.
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Histogram histogram : HISTOGRAMS.values()) {
+                String unit = histogram.isDuration() ? " in nanoseconds" : "";
+                for (String statistic : STATISTICS) {
+                    attributes.add(new MBeanAttributeInfo(histogram.getName() + "." + statistic, "double",
+                            statistic + " of " + histogram.getName() + unit, true, false, false));
+                }
+            }
+            for (String counter : COUNTERS.keySet()) {
+                attributes.add(new MBeanAttributeInfo(counter, "long", counter, true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Hot-path metrics of the Tron game",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package model;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+
+/**
+ * The CollisionGrid class is an occupancy map of the arena used for collision checks.
+ * Every trail cell written by a motorcycle stamps the area in which another motorcycle
+ * would touch it, so a collision lookup is a single array read no matter how long the
+ * trails have grown or how many motorcycles share the arena.
+ * <p>
+ * In swept mode the grid records the whole segment a motorcycle covered in a tick instead
+ * of only its end point, so fast motorcycles cannot jump over a trail between two ticks.
+ * <p>
+ * Each pixel stores a single byte: empty, the owner that claimed it, or shared once a second
+ * owner claims it too. A shared pixel is always touched by some other owner, which is all
+ * the collision rules need to know, so the grid size does not grow with the number of owners.
+ * <p>
+ * The arrays are only replaced when the grid is resized to a larger arena than it ever covered,
+ * so switching between levels reuses them instead of allocating new ones.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class CollisionGrid {
+
+    /**
+     * Size of the square drawn for a motorcycle and each of its trail cells.
+     */
+    public static final int CELL_SIZE = 10;
+
+    /**
+     * Maximum number of owners, limited by the byte stored per pixel.
+     */
+    public static final int MAX_OWNERS = 254;
+
+    private static final byte EMPTY = 0;
+    private static final byte SHARED = (byte) 0xFF;
+
+    private int width;
+    private int height;
+    private byte[] touchOwners;
+    private byte[] pathOwners;
+    private boolean swept;
+
+    public CollisionGrid(Dimension screenSize) {
+        resize(screenSize.width, screenSize.height);
+    }
+
+    /**
+     * Resizes the grid to cover a new arena and clears it.
+     *
+     * @param screenSize the size of the arena.
+     */
+    public void resize(Dimension screenSize) {
+        resize(screenSize.width, screenSize.height);
+    }
+
+    /**
+     * Resizes the grid to cover a new arena and clears it.
+     *
+     * @param arenaWidth the width of the arena.
+     * @param arenaHeight the height of the arena.
+     */
+    public void resize(int arenaWidth, int arenaHeight) {
+        width = arenaWidth + 1;
+        height = arenaHeight + 1;
+        if (touchOwners == null || touchOwners.length < width * height) {
+            touchOwners = new byte[width * height];
+            pathOwners = new byte[width * height];
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Removes every trail from the grid.
+     */
+    public void clear() {
+        Arrays.fill(touchOwners, 0, width * height, EMPTY);
+        Arrays.fill(pathOwners, 0, width * height, EMPTY);
+    }
+
+    /**
+     * Records an obstacle that every motorcycle collides with.
+     *
+     * @param x the x coordinate of the obstacle's top left corner.
+     * @param y the y coordinate of the obstacle's top left corner.
+     * @param obstacleWidth the width of the obstacle.
+     * @param obstacleHeight the height of the obstacle.
+     */
+    public void markObstacle(int x, int y, int obstacleWidth, int obstacleHeight) {
+        if (obstacleWidth <= 0 || obstacleHeight <= 0) {
+            return;
+        }
+        int fromX = Math.max(0, x - CELL_SIZE + 1);
+        int toX = Math.min(width - 1, x + obstacleWidth - 1);
+        int fromY = Math.max(0, y - CELL_SIZE + 1);
+        int toY = Math.min(height - 1, y + obstacleHeight - 1);
+        for (int row = fromY; row <= toY; row++) {
+            Arrays.fill(touchOwners, row * width + fromX, row * width + toX + 1, SHARED);
+        }
+    }
+
+    /**
+     * Records the move of the given owner from one position to another.
+     * In swept mode every pixel of the covered segment becomes part of the trail,
+     * otherwise only the end point does.
+     *
+     * @param owner the index of the motorcycle leaving the trail.
+     * @param fromX the x coordinate the motorcycle moved from.
+     * @param fromY the y coordinate the motorcycle moved from.
+     * @param toX the x coordinate the motorcycle moved to.
+     * @param toY the y coordinate the motorcycle moved to.
+     * @return true if the move crossed a trail the owner left earlier.
+     */
+    public boolean markMove(int owner, int fromX, int fromY, int toX, int toY) {
+        if (!swept) {
+            return mark(owner, toX, toY);
+        }
+        byte id = idOf(owner);
+        boolean crossed = false;
+        int stepX = Integer.signum(toX - fromX);
+        int stepY = Integer.signum(toY - fromY);
+        int steps = Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY));
+        int x = fromX;
+        int y = fromY;
+        if (contains(x, y)) {
+            int index = y * width + x;
+            pathOwners[index] = claim(pathOwners[index], id);
+        }
+        for (int i = 0; i < steps; i++) {
+            x += stepX;
+            y += stepY;
+            if (contains(x, y)) {
+                int index = y * width + x;
+                crossed |= includes(pathOwners[index], id);
+                pathOwners[index] = claim(pathOwners[index], id);
+            }
+        }
+        stamp(id, Math.min(fromX, toX), Math.min(fromY, toY), Math.max(fromX, toX), Math.max(fromY, toY));
+        return crossed;
+    }
+
+    /**
+     * Records a trail cell of the given owner.
+     *
+     * @param owner the index of the motorcycle leaving the trail.
+     * @param x the x coordinate of the trail cell.
+     * @param y the y coordinate of the trail cell.
+     * @return true if the owner already left a trail cell at exactly this position.
+     */
+    public boolean mark(int owner, int x, int y) {
+        if (!contains(x, y)) {
+            return false;
+        }
+        byte id = idOf(owner);
+        int index = y * width + x;
+        boolean visited = includes(pathOwners[index], id);
+        pathOwners[index] = claim(pathOwners[index], id);
+        stamp(id, x, y, x, y);
+        return visited;
+    }
+
+    /**
+     * Checks if the last move of a motorcycle touches a trail of any other owner.
+     * In swept mode the whole segment of the move is checked, otherwise only its end point.
+     *
+     * @param owner the index of the motorcycle being checked.
+     * @param fromX the x coordinate the motorcycle moved from.
+     * @param fromY the y coordinate the motorcycle moved from.
+     * @param toX the x coordinate of the motorcycle.
+     * @param toY the y coordinate of the motorcycle.
+     * @return true if the move overlaps another owner's trail.
+     */
+    public boolean touchesOther(int owner, int fromX, int fromY, int toX, int toY) {
+        if (!swept) {
+            return touchesOther(owner, toX, toY);
+        }
+        int stepX = Integer.signum(toX - fromX);
+        int stepY = Integer.signum(toY - fromY);
+        int steps = Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY));
+        int x = fromX;
+        int y = fromY;
+        for (int i = 0; i < steps; i++) {
+            x += stepX;
+            y += stepY;
+            if (touchesOther(owner, x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a motorcycle at the given position touches a trail of any other owner.
+     *
+     * @param owner the index of the motorcycle being checked.
+     * @param x the x coordinate of the motorcycle.
+     * @param y the y coordinate of the motorcycle.
+     * @return true if the position overlaps another owner's trail cell.
+     */
+    public boolean touchesOther(int owner, int x, int y) {
+        if (!contains(x, y)) {
+            return false;
+        }
+        byte cell = touchOwners[y * width + x];
+        return cell != EMPTY && cell != idOf(owner);
+    }
+
+    /**
+     * Checks if the given owner's trail passes exactly through a position.
+     * A position shared with other trails counts as well, since touching it is a collision anyway.
+     *
+     * @param owner the index of the motorcycle.
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if the position is part of the owner's trail.
+     */
+    public boolean isOnPath(int owner, int x, int y) {
+        if (!contains(x, y)) {
+            return false;
+        }
+        return includes(pathOwners[y * width + x], idOf(owner));
+    }
+
+    public boolean isSwept() {
+        return swept;
+    }
+
+    public void setSwept(boolean swept) {
+        this.swept = swept;
+    }
+
+    /**
+     * Marks the area in which a motorcycle would touch the given rectangle of trail cells.
+     */
+    private void stamp(byte id, int left, int top, int right, int bottom) {
+        int fromX = Math.max(0, left - CELL_SIZE + 1);
+        int toX = Math.min(width - 1, right + CELL_SIZE - 1);
+        int fromY = Math.max(0, top - CELL_SIZE + 1);
+        int toY = Math.min(height - 1, bottom + CELL_SIZE - 1);
+        for (int row = fromY; row <= toY; row++) {
+            int rowStart = row * width;
+            for (int column = fromX; column <= toX; column++) {
+                touchOwners[rowStart + column] = claim(touchOwners[rowStart + column], id);
+            }
+        }
+    }
+
+    private static byte idOf(int owner) {
+        return (byte) (owner + 1);
+    }
+
+    private static byte claim(byte cell, byte id) {
+        return cell == EMPTY || cell == id ? id : SHARED;
+    }
+
+    private static boolean includes(byte cell, byte id) {
+        return cell == id || cell == SHARED;
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
@@ -1,11 +1,13 @@
 package model;
 
-import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
-import javax.swing.JOptionPane;
-import persistence.Database;
+import metrics.Histogram;
+import metrics.Metrics;
+import persistence.Leaderboard;
+import persistence.MatchHistoryQueue;
+import persistence.MatchRecord;
 
 /**
  * The Game class represents the game state.
@@ -13,47 +15,80 @@ import persistence.Database;
  * @author Isroilbek Jamolov
  */
 public final class Game {
+    private static final Histogram UPDATE_TIME = Metrics.timer("game.update");
+    private static final Histogram COLLISION_TIME = Metrics.timer("game.collision");
+    private static final Histogram TRAIL_SEGMENTS = Metrics.histogram("game.trailSegments");
+    private static final Histogram ALLOCATED_BYTES = Metrics.histogram("game.allocatedBytes");
 
     private final List<Player> players;
-    private final Level[] levels;
+    private final LevelCatalogue levels;
+    private final CollisionGrid collisionGrid;
+    private boolean sweptCollision = true;
     private int currentLevelIndex = 0;
     private int maxWidth = 600;
     private int maxHeight = 600;
     private boolean gameOver;
+    private Player winner;
+    private Leaderboard leaderboard;
+    private MatchHistoryQueue matchHistory;
+    private final InputQueue inputQueue = new InputQueue();
+    private final InputLatency inputLatency = new InputLatency();
+    private final InputLog inputLog = new InputLog();
+    private int tick;
+    private TickListener tickListener;
+    private long levelStartTime;
+    private boolean publishingRenderState;
+    private volatile RenderState renderState;
 
+    /**
+     * Creates a game that plays the levels of the default {@link LevelCatalogue}.
+     */
     public Game() {
-        levels = new Level[10];
-        int speed = 3;
-        for (int i = 0; i < 10; i++) {
-            Dimension screenSize = new Dimension(600 - i * 25, 600 - i * 25);
-            boolean allowTrailTouch = i > 6;
-            if (i % 3 == 0) {
-                speed++;
-            }
-            levels[i] = new Level(speed, screenSize, allowTrailTouch);
-        }
+        this(LevelCatalogue.getDefault());
+    }
 
+    /**
+     * Creates a game that plays the levels of a catalogue.
+     *
+     * @param levels the levels to cycle through.
+     */
+    public Game(LevelCatalogue levels) {
+        this.levels = levels;
         players = new ArrayList<>();
+        collisionGrid = new CollisionGrid(levels.get(0).getScreenSize());
+        collisionGrid.setSwept(sweptCollision);
         gameOver = false;
+        renderState = new RenderState(0, levels.get(0), players);
     }
 
     /**
      * Advances the game to the next level.
      */
     public void nextLevel() {
-        if (currentLevelIndex < levels.length - 1) {
-            currentLevelIndex++;
+        if (currentLevelIndex < levels.size() - 1) {
+            selectLevel(currentLevelIndex + 1);
         } else {
-            currentLevelIndex = 0;
+            selectLevel(0);
         }
-        
-        Level currentLevel = levels[currentLevelIndex];
-        maxWidth = currentLevel.getScreenSize().width;
-        maxHeight = currentLevel.getScreenSize().height;
+    }
+
+    /**
+     * Switches the game to the given level and resets the players for it.
+     *
+     * @param levelIndex the index of the level, starting at 0.
+     * @throws IndexOutOfBoundsException if the catalogue has no such level; the game keeps its level.
+     */
+    public void selectLevel(int levelIndex) {
+        Level currentLevel = levels.get(levelIndex);
+        currentLevelIndex = levelIndex;
+        maxWidth = currentLevel.getWidth();
+        maxHeight = currentLevel.getHeight();
+        collisionGrid.resize(maxWidth, maxHeight);
 
         for (Player player : players) {
             player.getMotorcycle().setSpeed(currentLevel.getSpeed());
-            player.getMotorcycle().updatePosition(currentLevel.getScreenSize());
+            player.getMotorcycle().setAllowTrailTouch(currentLevel.isAllowTrailTouch());
+            player.getMotorcycle().updatePosition(maxWidth, maxHeight);
         }
 
         resetPlayerPositionsAndDirections();
@@ -74,7 +109,12 @@ public final class Game {
      * @param player the player to add.
      */
     public void addPlayer(Player player) {
+        if (players.size() >= CollisionGrid.MAX_OWNERS) {
+            throw new IllegalStateException("A game supports at most " + CollisionGrid.MAX_OWNERS + " players");
+        }
+        player.getMotorcycle().setCollisionGrid(collisionGrid, players.size());
         players.add(player);
+        publishRenderState();
     }
 
     /**
@@ -85,16 +125,41 @@ public final class Game {
     }
 
     /**
-     * Ends the game.
+     * Ends the game. The player left standing wins; if nobody is left the round is a draw.
      */
     public void end() {
         if (gameOver) return;
-        Player loser = checkCollision();
-        Player winner = loser.equals(players.get(0)) ? players.get(1) : players.get(0);
+        winner = null;
+        for (Player player : players) {
+            if (!player.isEliminated()) {
+                winner = player;
+                break;
+            }
+        }
         gameOver = true;
 
-        updateDatabase(winner);
-        showEndGameDialog(winner.getName());
+        if (winner != null) {
+            updateDatabase(winner);
+        }
+        if (matchHistory != null) {
+            matchHistory.submit(recordMatch());
+        }
+    }
+
+    /**
+     * Describes the round that just ended for the match history.
+     *
+     * @return the match, not stored yet.
+     */
+    private MatchRecord recordMatch() {
+        String[] names = new String[players.size()];
+        int[] trailLengths = new int[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            names[i] = players.get(i).getName();
+            trailLengths[i] = players.get(i).getMotorcycle().getTrail().getLength();
+        }
+        return new MatchRecord(0, System.currentTimeMillis(), currentLevelIndex + 1,
+                winner == null ? null : winner.getName(), getLevelTime(), tick, names, trailLengths);
     }
 
     /**
@@ -111,12 +176,121 @@ public final class Game {
     
     /**
      * Updates the game state.
+     * Turns from the input queue are applied first, then each motorcycle moves.
+     * Motorcycles that crash are eliminated and the round ends when at most one is left.
      */
     public void update() {
+        if (!Metrics.ENABLED) {
+            playTick();
+            return;
+        }
+        long allocatedBefore = Metrics.allocatedBytes();
+        long start = System.nanoTime();
+        long collisionNanos = playTick();
+        UPDATE_TIME.record(System.nanoTime() - start);
+        COLLISION_TIME.record(collisionNanos);
+        if (allocatedBefore >= 0) {
+            ALLOCATED_BYTES.record(Metrics.allocatedBytes() - allocatedBefore);
+        }
+        int segments = 0;
         for (Player player : players) {
+            segments += player.getMotorcycle().getTrail().getSegmentCount();
+        }
+        TRAIL_SEGMENTS.record(segments);
+    }
+
+    /**
+     * Plays one tick.
+     *
+     * @return the time spent checking for collisions, in nanoseconds.
+     */
+    private long playTick() {
+        if (tick == 0) {
+            inputLog.start(currentLevelIndex, players.size());
+        }
+        inputQueue.drain(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.isEliminated()) {
+                continue;
+            }
+            Motorcycle motorcycle = player.getMotorcycle();
+            Motorcycle.Direction direction = nextQueuedTurn(i, motorcycle);
+            PlayerController controller = player.getController();
+            if (direction == null && controller != null) {
+                direction = controller.chooseDirection(this, player);
+                if (!canTurn(motorcycle, direction)) {
+                    direction = null;
+                }
+            }
+            if (direction != null) {
+                motorcycle.changeDirection(direction);
+                inputLog.record(tick, i, direction);
+            }
+        }
+        tick++;
+        long collisionNanos = 0;
+        for (Player player : players) {
+            if (player.isEliminated()) {
+                continue;
+            }
             player.getMotorcycle().move();
-            if (checkCollision() != null) {
-                end();
+            long collisionStart = System.nanoTime();
+            eliminateCollided(player.getMotorcycle());
+            collisionNanos += System.nanoTime() - collisionStart;
+            if (gameOver) {
+                break;
+            }
+        }
+        if (tickListener != null) {
+            tickListener.tickFinished(this);
+        }
+        publishRenderState();
+        return collisionNanos;
+    }
+
+    /**
+     * Takes the first buffered turn of a player that is valid for the motorcycle's current
+     * direction, discarding the ones that are not.
+     *
+     * @return the direction to turn to, or null if no valid turn is buffered.
+     */
+    private Motorcycle.Direction nextQueuedTurn(int playerIndex, Motorcycle motorcycle) {
+        InputEvent event;
+        while ((event = inputQueue.nextTurn(playerIndex)) != null) {
+            if (canTurn(motorcycle, event.getDirection())) {
+                inputLatency.record(System.nanoTime() - event.getSubmittedAt());
+                return event.getDirection();
+            }
+        }
+        return null;
+    }
+
+    private static boolean canTurn(Motorcycle motorcycle, Motorcycle.Direction direction) {
+        return direction != null && direction != motorcycle.getDirection()
+                && direction != motorcycle.getDirection().opposite();
+    }
+
+    /**
+     * Eliminates the players that collided after a motorcycle moved. Only the motorcycle
+     * itself and the motorcycles whose last move lies within reach of its new trail can
+     * have collided, so the others are not checked.
+     * 
+     * @param mover the motorcycle that just moved.
+     */
+    private void eliminateCollided(Motorcycle mover) {
+        for (Player player : players) {
+            if (player.isEliminated()) {
+                continue;
+            }
+            Motorcycle motorcycle = player.getMotorcycle();
+            if ((motorcycle == mover || isWithinReach(mover, motorcycle)) && hasCollided(motorcycle)) {
+                player.eliminate();
+                int remaining = countRemainingPlayers();
+                if (remaining == 0 || (players.size() > 1 && remaining == 1)) {
+                    end();
+                    return;
+                }
             }
         }
     }
@@ -124,119 +298,395 @@ public final class Game {
     /**
      * Checks for collisions between players' motorcycles and trails, or with boundaries of the board.
      * 
-     * @return the player who collided or null if no collision.
+     * @return the first player still in the round who collided, or null if no collision.
      */
     public Player checkCollision() {
-        int size = 10;
-
         for (Player player : players) {
-            Point currentPosition = player.getMotorcycle().getPosition();
-            if (!isInBounds(currentPosition)) {
+            if (!player.isEliminated() && hasCollided(player.getMotorcycle())) {
                 return player;
             }
-            for (Player otherPlayer : players) {
-                if (otherPlayer != player) {
-                    List<Trail> trails = otherPlayer.getMotorcycle().getTrails();
-                    for (Trail trail : trails) {
-                        Point trailPosition = trail.getPosition();
-                        if (Math.abs(trailPosition.x - currentPosition.x) < size 
-                                && Math.abs(trailPosition.y - currentPosition.y) < size) {
-                            return player;
-                        }
-                    }
-                } else if (otherPlayer == player && !player.getMotorcycle().getAllowTrailTouch()) {
-                    List<Trail> trails = otherPlayer.getMotorcycle().getTrails();
-                    for (int i = 0; i < trails.size(); i++) {
-                        Trail trail = trails.get(i);
-                        Point trailPosition = trail.getPosition();
-                        if (i == trails.size() - 1) {
-                            continue;
-                        }
-                        if (currentPosition.equals(trailPosition)) {
-                            return player;
-                        }
-                    }
-                }
-            }
         }
         return null;
     }
+
+    /**
+     * Checks if a motorcycle's last move took it out of bounds, onto another trail,
+     * or across its own trail when that is not allowed.
+     * 
+     * @param motorcycle the motorcycle to check.
+     * @return true if the motorcycle collided.
+     */
+    private boolean hasCollided(Motorcycle motorcycle) {
+        if (!isInBounds(motorcycle.getX(), motorcycle.getY())) {
+            return true;
+        }
+        if (collisionGrid.touchesOther(motorcycle.getOwnerId(), motorcycle.getPreviousX(), motorcycle.getPreviousY(),
+                motorcycle.getX(), motorcycle.getY())) {
+            return true;
+        }
+        return !motorcycle.getAllowTrailTouch() && motorcycle.hasCrossedOwnTrail();
+    }
+
+    /**
+     * Checks if the last moves of two motorcycles come close enough to touch.
+     */
+    private boolean isWithinReach(Motorcycle first, Motorcycle second) {
+        int reach = CollisionGrid.CELL_SIZE - 1;
+        return Math.min(first.getPreviousX(), first.getX()) - reach <= Math.max(second.getPreviousX(), second.getX())
+                && Math.max(first.getPreviousX(), first.getX()) + reach >= Math.min(second.getPreviousX(), second.getX())
+                && Math.min(first.getPreviousY(), first.getY()) - reach <= Math.max(second.getPreviousY(), second.getY())
+                && Math.max(first.getPreviousY(), first.getY()) + reach >= Math.min(second.getPreviousY(), second.getY());
+    }
+
+    private int countRemainingPlayers() {
+        int remaining = 0;
+        for (Player player : players) {
+            if (!player.isEliminated()) {
+                remaining++;
+            }
+        }
+        return remaining;
+    }
     
     /**
      * Checks if a point is within the game's bounds.
      * 
-     * @param position the point to check.
+     * @param x the x coordinate of the point.
+     * @param y the y coordinate of the point.
      * @return true if the point is within bounds, false otherwise.
      */
-    private boolean isInBounds(Point position) {
-        return position.x >= 0 && position.x <= maxWidth && position.y >= 0 && position.y <= maxHeight;
+    private boolean isInBounds(int x, int y) {
+        return x >= 0 && x <= maxWidth && y >= 0 && y <= maxHeight;
+    }
+
+    /**
+     * Checks if a motorcycle moving through a position would crash there.
+     * 
+     * @param owner the owner index of the motorcycle.
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if the position is out of bounds, touches another trail, or is on the motorcycle's own trail.
+     */
+    public boolean isBlocked(int owner, int x, int y) {
+        return !isInBounds(x, y) || collisionGrid.touchesOther(owner, x, y) || collisionGrid.isOnPath(owner, x, y);
     }
     
     /**
      * Resets player positions and directions to their initial states.
+     * Two players start in opposite corners, heading along the top and bottom edges.
+     * More players are spread over the arena, see {@link #placePlayersOnGrid()}.
      */
     private void resetPlayerPositionsAndDirections() {
-        if (players.size() >= 2) {
-            Player player1 = players.get(0);
-            Player player2 = players.get(1);
+        collisionGrid.setSwept(sweptCollision);
+        clearCollisionGrid();
+        inputQueue.clear();
+        tick = 0;
+        if (players.size() == 2) {
+            players.get(0).getMotorcycle().setStartPosition(0, 0);
+            players.get(0).getMotorcycle().setStartDirection(Motorcycle.Direction.RIGHT);
+            players.get(1).getMotorcycle().setStartPosition(maxWidth, maxHeight - 10);
+            players.get(1).getMotorcycle().setStartDirection(Motorcycle.Direction.LEFT);
+        } else {
+            placePlayersOnGrid();
+        }
+        for (Player player : players) {
+            player.reset();
+        }
+        startLevelTimer();
+        publishRenderState();
+    }
 
-            // Resetting to initial positions
-            player1.getMotorcycle().setStartPosition(new Point(0, 0));
-            player2.getMotorcycle().setStartPosition(new Point(maxWidth, maxHeight - 10));
+    /**
+     * Starts the players in the middle of the cells of a square grid laid over the arena,
+     * using the smallest grid with a free cell for everyone. Cells close to an obstacle are
+     * skipped, and the players are spread evenly over the free cells. Every player heads for
+     * the nearest wall, so no one starts out heading into another player's trail; players
+     * spread along the edge of the arena and heading along it or into the arena
+     * left some starting places without a single win in large bot matches.
+     */
+    private void placePlayersOnGrid() {
+        int right = maxWidth;
+        int bottom = maxHeight - 10;
+        Level level = levels.get(currentLevelIndex);
+        List<Point> free = new ArrayList<>();
+        for (int size = (int) Math.ceil(Math.sqrt(players.size())); ; size++) {
+            free.clear();
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    int x = (2 * column + 1) * right / (2 * size);
+                    int y = (2 * row + 1) * bottom / (2 * size);
+                    if (!isNearObstacle(level, x, y)) {
+                        free.add(new Point(x, y));
+                    }
+                }
+            }
+            if (free.size() >= players.size() || size >= Math.min(right, bottom)) {
+                break;
+            }
+        }
+        for (int i = 0; i < players.size(); i++) {
+            Point cell = free.get((int) ((long) i * free.size() / players.size()));
+            Motorcycle motorcycle = players.get(i).getMotorcycle();
+            motorcycle.setStartPosition(cell.x, cell.y);
+            long fromLeft = (long) cell.x * bottom;
+            long fromRight = (long) (right - cell.x) * bottom;
+            long fromTop = (long) cell.y * right;
+            long fromBottom = (long) (bottom - cell.y) * right;
+            if (Math.min(fromLeft, fromRight) < Math.min(fromTop, fromBottom)) {
+                motorcycle.setStartDirection(fromLeft < fromRight ? Motorcycle.Direction.LEFT : Motorcycle.Direction.RIGHT);
+            } else {
+                motorcycle.setStartDirection(fromTop <= fromBottom ? Motorcycle.Direction.UP : Motorcycle.Direction.DOWN);
+            }
+        }
+    }
 
-            // Resetting to initial directions
-            player1.getMotorcycle().setStartDirection(Motorcycle.Direction.RIGHT);
-            player2.getMotorcycle().setStartDirection(Motorcycle.Direction.LEFT);
+    /**
+     * Checks if a point lies in one of a level's obstacles or within two collision cells of it.
+     */
+    private static boolean isNearObstacle(Level level, int x, int y) {
+        int margin = 2 * CollisionGrid.CELL_SIZE;
+        for (int i = 0; i < level.getObstacleCount(); i++) {
+            if (x >= level.getObstacleX(i) - margin && x <= level.getObstacleX(i) + level.getObstacleWidth(i) + margin
+                    && y >= level.getObstacleY(i) - margin && y <= level.getObstacleY(i) + level.getObstacleHeight(i) + margin) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            // Applying the reset
-            player1.getMotorcycle().reset();
-            player2.getMotorcycle().reset();
+    /**
+     * Removes every trail from the collision grid, leaving only the obstacles of the current level.
+     */
+    private void clearCollisionGrid() {
+        collisionGrid.clear();
+        Level level = levels.get(currentLevelIndex);
+        for (int i = 0; i < level.getObstacleCount(); i++) {
+            collisionGrid.markObstacle(level.getObstacleX(i), level.getObstacleY(i),
+                    level.getObstacleWidth(i), level.getObstacleHeight(i));
         }
-        levels[currentLevelIndex].startLevel();
+    }
+
+    /**
+     * Restarts the timer of the current level.
+     */
+    public void startLevelTimer() {
+        levelStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the number of milliseconds since the current level started.
+     */
+    public long getLevelTime() {
+        return System.currentTimeMillis() - levelStartTime;
     }
     
     
     /**
-     * Updates the database with the winner's score.
+     * Records the winner's score on the leaderboard, which writes it to the database in the background.
      * 
      * @param winner the winning player.
      */
     private void updateDatabase(Player winner) {
-        Database db = new Database();
-        db.storeHighScore(winner);
-        db.closeConnection();
+        if (leaderboard != null) {
+            leaderboard.recordScore(winner.getName(), winner.getScore());
+        }
+    }
+
+    /**
+     * Sets the leaderboard winners' scores are recorded on.
+     * 
+     * @param leaderboard the leaderboard, or null to not record scores.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
     }
 
     /**
-     * Shows an end game dialog with the winner's name.
+     * Sets the queue finished rounds are written to the match history through.
+     *
+     * @param matchHistory the queue, or null to not record rounds.
+     */
+    public void setMatchHistory(MatchHistoryQueue matchHistory) {
+        this.matchHistory = matchHistory;
+    }
+
+    /**
+     * Finishes a round that has ended, either continuing with the next level
+     * or going back to the first level.
      * 
-     * @param winnerName the name of the winner.
+     * @param continuePlaying true to continue with the next level.
      */
-    private void showEndGameDialog(String winnerName) {
-        int option = JOptionPane.showConfirmDialog(null, winnerName + " wins! " + "Do you want to continue?", "End of the Game", 
-                JOptionPane.YES_NO_OPTION);
-        
-        if (option == JOptionPane.YES_OPTION) {
+    public void finishRound(boolean continuePlaying) {
+        if (continuePlaying) {
             reset();
             nextLevel();
         } else {
-            resetPlayerPositionsAndDirections();
-            currentLevelIndex = 0;
+            selectLevel(0);
         }
     }
 
+    /**
+     * Returns the winner of the last round.
+     * 
+     * @return the winning player, or null if no round has ended yet.
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
     public List<Player> getPlayers() {
         return players;
     }
 
+    /**
+     * Copies the state of the current round.
+     * 
+     * @return the snapshot.
+     */
+    public GameSnapshot snapshot() {
+        int count = players.size();
+        int[] positions = new int[count * 4];
+        Motorcycle.Direction[] directions = new Motorcycle.Direction[count];
+        boolean[] eliminated = new boolean[count];
+        boolean[] crossedOwnTrail = new boolean[count];
+        int[][] trails = new int[count][];
+        for (int i = 0; i < count; i++) {
+            Motorcycle motorcycle = players.get(i).getMotorcycle();
+            positions[i * 4] = motorcycle.getX();
+            positions[i * 4 + 1] = motorcycle.getY();
+            positions[i * 4 + 2] = motorcycle.getPreviousX();
+            positions[i * 4 + 3] = motorcycle.getPreviousY();
+            directions[i] = motorcycle.getDirection();
+            eliminated[i] = players.get(i).isEliminated();
+            crossedOwnTrail[i] = motorcycle.hasCrossedOwnTrail();
+            trails[i] = motorcycle.getTrail().copySegments();
+        }
+        return new GameSnapshot(tick, positions, directions, eliminated, crossedOwnTrail, trails);
+    }
+
+    /**
+     * Puts the current round back into the state of a snapshot taken on the same level
+     * with the same players. The round continues from the snapshot's tick.
+     * 
+     * @param snapshot the snapshot to restore.
+     */
+    public void restore(GameSnapshot snapshot) {
+        if (snapshot.getPlayerCount() != players.size()) {
+            throw new IllegalArgumentException("Snapshot has " + snapshot.getPlayerCount() + " players, game has " + players.size());
+        }
+        clearCollisionGrid();
+        inputQueue.clear();
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).getMotorcycle().restore(snapshot, i);
+            players.get(i).setEliminated(snapshot.isEliminated(i));
+        }
+        tick = snapshot.getTick();
+        gameOver = false;
+        winner = null;
+        publishRenderState();
+    }
+
+    /**
+     * Publishes the state of the round for views drawing on another thread, if they asked for it.
+     */
+    private void publishRenderState() {
+        if (publishingRenderState) {
+            renderState = new RenderState(tick, levels.get(currentLevelIndex), players);
+        }
+    }
+
+    /**
+     * Returns the state of the round as it was at the end of the last tick. The state never
+     * changes, so it can be read without holding the game's lock while the game keeps ticking.
+     *
+     * @return the last published state.
+     */
+    public RenderState getRenderState() {
+        return renderState;
+    }
+
+    /**
+     * Selects whether a {@link RenderState} is published after every tick. Games nobody
+     * draws leave it off, so their ticks do not allocate.
+     *
+     * @param publishingRenderState true to publish the state after every tick.
+     */
+    public void setPublishingRenderState(boolean publishingRenderState) {
+        this.publishingRenderState = publishingRenderState;
+        publishRenderState();
+    }
+
+    /**
+     * Sets the listener notified at the end of every tick.
+     * 
+     * @param tickListener the listener, or null to not notify anyone.
+     */
+    public void setTickListener(TickListener tickListener) {
+        this.tickListener = tickListener;
+    }
+
+    /**
+     * Returns the queue turns from the keyboard are submitted to.
+     * 
+     * @return the input queue.
+     */
+    public InputQueue getInputQueue() {
+        return inputQueue;
+    }
+
+    public InputLatency getInputLatency() {
+        return inputLatency;
+    }
+
+    /**
+     * Returns the turns applied in the current round, or in the last one once it has ended.
+     * 
+     * @return the input log.
+     */
+    public InputLog getInputLog() {
+        return inputLog;
+    }
+
+    /**
+     * Returns the number of ticks played in the current round.
+     * 
+     * @return the tick count.
+     */
+    public int getTick() {
+        return tick;
+    }
+
     public int getCurrentLevelIndex() {
         return currentLevelIndex;
     }
 
     public Level getCurrentLevel() {
-        return levels[currentLevelIndex];
+        return levels.get(currentLevelIndex);
+    }
+
+    public int getLevelCount() {
+        return levels.size();
     }
     
+    /**
+     * Checks if collisions are tested along the whole segment covered by each move.
+     *
+     * @return true if swept collision is enabled, false if only end points are tested.
+     */
+    public boolean isSweptCollision() {
+        return collisionGrid.isSwept();
+    }
+
+    /**
+     * Selects between swept collision and end point collision.
+     * Changing the mode takes effect for moves made after the next reset.
+     *
+     * @param sweptCollision true to test the whole segment covered by each move.
+     */
+    public void setSweptCollision(boolean sweptCollision) {
+        this.sweptCollision = sweptCollision;
+    }
+
     public int getMaxWidth() {
         return maxWidth;
     }
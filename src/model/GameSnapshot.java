@@ -0,0 +1,81 @@
+package model;
+
+/**
+ * The GameSnapshot class represents the state of a round at the end of a tick:
+ * the position, direction and trail of every motorcycle and which players have been eliminated.
+ * A game can be put back into the state of a snapshot with {@link Game#restore(GameSnapshot)}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class GameSnapshot {
+    private final int tick;
+    private final int[] positions;
+    private final Motorcycle.Direction[] directions;
+    private final boolean[] eliminated;
+    private final boolean[] crossedOwnTrail;
+    private final int[][] trails;
+
+    /**
+     * @param tick the number of ticks played in the round.
+     * @param positions the x, y, previous x and previous y coordinates of each motorcycle.
+     * @param directions the direction of each motorcycle.
+     * @param eliminated whether each player has been eliminated.
+     * @param crossedOwnTrail whether each motorcycle's last move crossed its own trail.
+     * @param trails the segment coordinates of each trail, four per segment.
+     */
+    public GameSnapshot(int tick, int[] positions, Motorcycle.Direction[] directions, boolean[] eliminated,
+            boolean[] crossedOwnTrail, int[][] trails) {
+        this.tick = tick;
+        this.positions = positions;
+        this.directions = directions;
+        this.eliminated = eliminated;
+        this.crossedOwnTrail = crossedOwnTrail;
+        this.trails = trails;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getPlayerCount() {
+        return directions.length;
+    }
+
+    public int getX(int player) {
+        return positions[player * 4];
+    }
+
+    public int getY(int player) {
+        return positions[player * 4 + 1];
+    }
+
+    public int getPreviousX(int player) {
+        return positions[player * 4 + 2];
+    }
+
+    public int getPreviousY(int player) {
+        return positions[player * 4 + 3];
+    }
+
+    public Motorcycle.Direction getDirection(int player) {
+        return directions[player];
+    }
+
+    public boolean isEliminated(int player) {
+        return eliminated[player];
+    }
+
+    public boolean hasCrossedOwnTrail(int player) {
+        return crossedOwnTrail[player];
+    }
+
+    /**
+     * Returns the trail of a motorcycle. The array must not be modified.
+     *
+     * @param player the index of the player.
+     * @return the segment coordinates, four per segment.
+     */
+    public int[] getTrail(int player) {
+        return trails[player];
+    }
+}
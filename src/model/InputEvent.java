@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * The InputEvent class represents a turn requested from the keyboard,
+ * waiting to be applied by the simulation.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class InputEvent {
+    private final int playerIndex;
+    private final Motorcycle.Direction direction;
+    private final long submittedAt;
+
+    /**
+     * @param playerIndex the index of the player turning.
+     * @param direction the requested direction.
+     * @param submittedAt the time the turn was requested, from {@link System#nanoTime()}.
+     */
+    public InputEvent(int playerIndex, Motorcycle.Direction direction, long submittedAt) {
+        this.playerIndex = playerIndex;
+        this.direction = direction;
+        this.submittedAt = submittedAt;
+    }
+
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    public Motorcycle.Direction getDirection() {
+        return direction;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+}
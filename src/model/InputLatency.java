@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * The InputLatency class measures the time from a key press to the tick in which
+ * the motorcycle starts moving in the new direction.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class InputLatency {
+    private static final double SMOOTHING = 0.1;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private double averageNanos;
+    private long maxNanos;
+    private long count;
+
+    /**
+     * Records the latency of one applied turn.
+     *
+     * @param nanos the time from the key press to the tick, in nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        averageNanos = count == 0 ? nanos : averageNanos + SMOOTHING * (nanos - averageNanos);
+        maxNanos = Math.max(maxNanos, nanos);
+        count++;
+    }
+
+    public synchronized double getAverageMillis() {
+        return averageNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+}
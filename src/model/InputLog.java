@@ -0,0 +1,165 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The InputLog class records every turn applied during a round together with the tick it was
+ * applied in. The simulation does not depend on timing, so playing the logged turns back on the
+ * same level with the same number of players reproduces the round exactly.
+ * <p>
+ * A log is written as text: a {@code level} line, a {@code players} line and one
+ * {@code tick player DIRECTION} line per turn.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class InputLog {
+    private static final int FIELDS = 3;
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+
+    private int levelIndex;
+    private int playerCount;
+    private int[] turns = new int[FIELDS * 64];
+    private int turnCount;
+
+    /**
+     * Clears the log for a new round.
+     *
+     * @param levelIndex the index of the level being played.
+     * @param playerCount the number of players in the round.
+     */
+    void start(int levelIndex, int playerCount) {
+        this.levelIndex = levelIndex;
+        this.playerCount = playerCount;
+        turnCount = 0;
+    }
+
+    /**
+     * Records an applied turn. Turns must be recorded in tick order.
+     *
+     * @param tick the tick the turn was applied in.
+     * @param playerIndex the index of the player turning.
+     * @param direction the new direction.
+     */
+    void record(int tick, int playerIndex, Motorcycle.Direction direction) {
+        if ((turnCount + 1) * FIELDS > turns.length) {
+            turns = Arrays.copyOf(turns, turns.length * 2);
+        }
+        int offset = turnCount * FIELDS;
+        turns[offset] = tick;
+        turns[offset + 1] = playerIndex;
+        turns[offset + 2] = direction.ordinal();
+        turnCount++;
+    }
+
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    public int getTick(int turn) {
+        return turns[turn * FIELDS];
+    }
+
+    public int getPlayerIndex(int turn) {
+        return turns[turn * FIELDS + 1];
+    }
+
+    public Motorcycle.Direction getDirection(int turn) {
+        return DIRECTIONS[turns[turn * FIELDS + 2]];
+    }
+
+    /**
+     * Creates a controller that steers a player exactly as recorded in this log.
+     *
+     * @param playerIndex the index of the player to replay.
+     * @return the controller.
+     */
+    public PlayerController replay(int playerIndex) {
+        return new ReplayController(playerIndex);
+    }
+
+    /**
+     * Writes the log to a file.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("level " + (levelIndex + 1));
+            writer.newLine();
+            writer.write("players " + playerCount);
+            writer.newLine();
+            for (int i = 0; i < turnCount; i++) {
+                writer.write(getTick(i) + " " + (getPlayerIndex(i) + 1) + " " + getDirection(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a log written with {@link #write(Path)}.
+     *
+     * @param path the file to read.
+     * @return the log.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static InputLog read(Path path) throws IOException {
+        InputLog log = new InputLog();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                try {
+                    if (fields[0].equals("level")) {
+                        log.levelIndex = Integer.parseInt(fields[1]) - 1;
+                    } else if (fields[0].equals("players")) {
+                        log.playerCount = Integer.parseInt(fields[1]);
+                    } else if (fields.length == FIELDS) {
+                        log.record(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]) - 1,
+                                Motorcycle.Direction.valueOf(fields[2]));
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed input log line: " + line, e);
+                }
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Plays back the turns of one player, in the tick they were recorded in.
+     */
+    private final class ReplayController implements PlayerController {
+        private final int playerIndex;
+        private int next;
+
+        ReplayController(int playerIndex) {
+            this.playerIndex = playerIndex;
+        }
+
+        @Override
+        public Motorcycle.Direction chooseDirection(Game game, Player player) {
+            while (next < turnCount && (getPlayerIndex(next) != playerIndex || getTick(next) < game.getTick())) {
+                next++;
+            }
+            if (next < turnCount && getTick(next) == game.getTick()) {
+                return getDirection(next++);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The InputQueue class carries turns requested from the keyboard to the simulation.
+ * Turns can be submitted from any thread without locking. At the start of every tick the
+ * simulation drains them into a small buffer per player and applies at most one buffered
+ * turn per player, checked against the direction the motorcycle has at that tick. Two quick
+ * key presses between ticks therefore become two turns on consecutive ticks instead of a
+ * reversal, and no turn waits more than {@link #TURN_BUFFER_SIZE} ticks to be applied.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class InputQueue {
+
+    /**
+     * Maximum number of turns buffered for a player. Further turns are dropped.
+     */
+    public static final int TURN_BUFFER_SIZE = 3;
+
+    private final ConcurrentLinkedQueue<InputEvent> submitted = new ConcurrentLinkedQueue<>();
+    private final List<ArrayDeque<InputEvent>> turnBuffers = new ArrayList<>();
+
+    /**
+     * Requests a turn for a player. Safe to call from any thread.
+     *
+     * @param playerIndex the index of the player turning.
+     * @param direction the requested direction.
+     */
+    public void submit(int playerIndex, Motorcycle.Direction direction) {
+        submitted.offer(new InputEvent(playerIndex, direction, System.nanoTime()));
+    }
+
+    /**
+     * Moves the submitted turns into the buffers of their players.
+     * A turn is dropped if its player's buffer is full or it repeats the last buffered turn.
+     *
+     * @param playerCount the number of players in the game.
+     */
+    void drain(int playerCount) {
+        while (turnBuffers.size() < playerCount) {
+            turnBuffers.add(new ArrayDeque<>(TURN_BUFFER_SIZE));
+        }
+        InputEvent event;
+        while ((event = submitted.poll()) != null) {
+            if (event.getPlayerIndex() < 0 || event.getPlayerIndex() >= playerCount) {
+                continue;
+            }
+            ArrayDeque<InputEvent> buffer = turnBuffers.get(event.getPlayerIndex());
+            InputEvent last = buffer.peekLast();
+            if (buffer.size() < TURN_BUFFER_SIZE && (last == null || last.getDirection() != event.getDirection())) {
+                buffer.addLast(event);
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest buffered turn of a player.
+     *
+     * @param playerIndex the index of the player.
+     * @return the turn, or null if none is buffered.
+     */
+    InputEvent nextTurn(int playerIndex) {
+        return playerIndex < turnBuffers.size() ? turnBuffers.get(playerIndex).pollFirst() : null;
+    }
+
+    /**
+     * Discards every submitted and buffered turn.
+     */
+    void clear() {
+        submitted.clear();
+        for (ArrayDeque<InputEvent> buffer : turnBuffers) {
+            buffer.clear();
+        }
+    }
+}
@@ -3,42 +3,91 @@ package model;
 import java.awt.Dimension;
 
 /**
- * The Level class represents a game level.
+ * The Level class represents a game level: the size of the arena, how fast the motorcycles
+ * go, whether they may touch their own trail, how many ticks are played per second and the
+ * obstacles placed in the arena.
+ * <p>
+ * Levels are immutable, so the levels of a {@link LevelCatalogue} are shared by every game
+ * that plays them.
  * 
  * @author Isroilbek Jamolov
  */
 public class Level {
     private final int speed;
-    private final Dimension screenSize;
+    private final int width;
+    private final int height;
     private final boolean allowTrailTouch;
-    private long levelStartTime;
-    
+    private final int tickRate;
+    private final int[] obstacles;
+
     public Level(int speed, Dimension screenSize, boolean allowTrailTouch) {
-        this.speed = speed;
-        this.screenSize = screenSize;
-        this.allowTrailTouch = allowTrailTouch;
+        this(speed, screenSize.width, screenSize.height, allowTrailTouch, LevelCatalogue.DEFAULT_TICK_RATE, new int[0]);
     }
-    
+
     /**
-     * Initializes the start of the Level's time.
+     * @param speed the number of pixels a motorcycle moves per tick.
+     * @param width the width of the arena.
+     * @param height the height of the arena.
+     * @param allowTrailTouch true if motorcycles may cross their own trail.
+     * @param tickRate the number of ticks per second.
+     * @param obstacles the obstacles as x, y, width and height of each rectangle.
      */
-    public void startLevel() {
-        levelStartTime = System.currentTimeMillis();
-    }
-    
-    public long getLevelTime() {
-        return System.currentTimeMillis() - levelStartTime;
+    public Level(int speed, int width, int height, boolean allowTrailTouch, int tickRate, int[] obstacles) {
+        if (obstacles.length % 4 != 0) {
+            throw new IllegalArgumentException("Obstacles need 4 values each, got " + obstacles.length);
+        }
+        this.speed = speed;
+        this.width = width;
+        this.height = height;
+        this.allowTrailTouch = allowTrailTouch;
+        this.tickRate = tickRate;
+        this.obstacles = obstacles.clone();
     }
     
     public int getSpeed() {
         return speed;
     }
     
+    /**
+     * @return a copy of the size of the arena.
+     */
     public Dimension getScreenSize() {
-        return screenSize;
+        return new Dimension(width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
     }
     
     public boolean isAllowTrailTouch() {
         return allowTrailTouch;
     }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getObstacleCount() {
+        return obstacles.length / 4;
+    }
+
+    public int getObstacleX(int obstacle) {
+        return obstacles[obstacle * 4];
+    }
+
+    public int getObstacleY(int obstacle) {
+        return obstacles[obstacle * 4 + 1];
+    }
+
+    public int getObstacleWidth(int obstacle) {
+        return obstacles[obstacle * 4 + 2];
+    }
+
+    public int getObstacleHeight(int obstacle) {
+        return obstacles[obstacle * 4 + 3];
+    }
 }
@@ -0,0 +1,188 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The LevelCatalogue class represents the list of levels a game cycles through, read from a
+ * text file so levels can be changed or added without recompiling. Each level starts with a
+ * {@code level} line, followed by any number of {@code obstacle} lines:
+ * <pre>
+ * # level &lt;width&gt; &lt;height&gt; &lt;speed&gt; &lt;ticks per second&gt; &lt;touch|notouch&gt;
+ * level 600 600 4 60 notouch
+ * # obstacle &lt;x&gt; &lt;y&gt; &lt;width&gt; &lt;height&gt;
+ * obstacle 280 100 40 120
+ * </pre>
+ * Lines starting with {@code #} and blank lines are ignored. Every line is checked when the
+ * catalogue is read, so a bad file is refused up front rather than when its level is played;
+ * only the {@link Level} itself is built the first time it is played, and kept afterwards.
+ * <p>
+ * The default catalogue is read once from the file named by the {@code tron.levels} system
+ * property, or {@value #DEFAULT_FILE} in the working directory, and shared by every game.
+ * Without that file the ten built-in levels are used.
+ *
+ * @author Isroilbek Jamolov
+ */
+public final class LevelCatalogue {
+    public static final String DEFAULT_FILE = "levels.txt";
+    public static final int DEFAULT_TICK_RATE = 60;
+
+    private final int[][] settings;
+    private final boolean[] allowTrailTouch;
+    private final int[][] obstacles;
+    private final Level[] levels;
+
+    /**
+     * @param lines the lines of a catalogue file.
+     * @throws IllegalArgumentException if the catalogue has no levels, an obstacle comes first
+     *                                  or a line is malformed.
+     */
+    public LevelCatalogue(List<String> lines) {
+        List<int[]> levelSettings = new ArrayList<>();
+        List<Boolean> touch = new ArrayList<>();
+        List<int[]> levelObstacles = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields[0].equals("level")) {
+                if (fields.length != 6 || !(fields[5].equals("touch") || fields[5].equals("notouch"))) {
+                    throw new IllegalArgumentException("Malformed level on line " + (i + 1) + ": " + line);
+                }
+                // Stored in the order of the Level constructor: speed, width, height, tick rate.
+                levelSettings.add(new int[] {
+                        parsePositive(fields[3], i), parsePositive(fields[1], i), parsePositive(fields[2], i),
+                        parsePositive(fields[4], i)});
+                touch.add(fields[5].equals("touch"));
+                levelObstacles.add(new int[0]);
+            } else if (levelSettings.isEmpty()) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " is not part of a level: " + line);
+            } else if (fields.length == 5 && fields[0].equals("obstacle")) {
+                int[] previous = levelObstacles.get(levelObstacles.size() - 1);
+                int[] extended = Arrays.copyOf(previous, previous.length + 4);
+                extended[previous.length] = parse(fields[1], i);
+                extended[previous.length + 1] = parse(fields[2], i);
+                extended[previous.length + 2] = parsePositive(fields[3], i);
+                extended[previous.length + 3] = parsePositive(fields[4], i);
+                levelObstacles.set(levelObstacles.size() - 1, extended);
+            } else {
+                throw new IllegalArgumentException("Malformed obstacle on line " + (i + 1) + ": " + line);
+            }
+        }
+        if (levelSettings.isEmpty()) {
+            throw new IllegalArgumentException("The level catalogue has no levels");
+        }
+        settings = levelSettings.toArray(new int[0][]);
+        allowTrailTouch = new boolean[touch.size()];
+        for (int i = 0; i < allowTrailTouch.length; i++) {
+            allowTrailTouch[i] = touch.get(i);
+        }
+        obstacles = levelObstacles.toArray(new int[0][]);
+        levels = new Level[settings.length];
+    }
+
+    private static int parse(String field, int line) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + (line + 1) + ": " + field + " is not a number");
+        }
+    }
+
+    private static int parsePositive(String field, int line) {
+        int value = parse(field, line);
+        if (value <= 0) {
+            throw new IllegalArgumentException("Line " + (line + 1) + ": " + field + " must be positive");
+        }
+        return value;
+    }
+
+    /**
+     * Reads a catalogue from a file.
+     *
+     * @param path the catalogue file.
+     * @return the catalogue.
+     * @throws IOException if the file cannot be read.
+     */
+    public static LevelCatalogue read(Path path) throws IOException {
+        return new LevelCatalogue(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the catalogue shared by every game, reading it on first use.
+     *
+     * @return the default catalogue.
+     */
+    public static LevelCatalogue getDefault() {
+        return DefaultCatalogue.INSTANCE;
+    }
+
+    /**
+     * Holds the default catalogue, so it is only read when a game first asks for it.
+     */
+    private static final class DefaultCatalogue {
+        private static final LevelCatalogue INSTANCE = load();
+
+        private static LevelCatalogue load() {
+            Path path = Paths.get(System.getProperty("tron.levels", DEFAULT_FILE));
+            try {
+                return read(path);
+            } catch (NoSuchFileException e) {
+                return builtIn();
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("level catalogue error: " + e.getMessage());
+                return builtIn();
+            }
+        }
+    }
+
+    /**
+     * Builds the ten levels the game shipped with: the arena shrinks by 25 pixels per level,
+     * the speed goes up every third level and from level 8 on motorcycles may touch their trail.
+     *
+     * @return the built-in catalogue.
+     */
+    static LevelCatalogue builtIn() {
+        List<String> lines = new ArrayList<>();
+        int speed = 3;
+        for (int i = 0; i < 10; i++) {
+            if (i % 3 == 0) {
+                speed++;
+            }
+            int size = 600 - i * 25;
+            lines.add("level " + size + " " + size + " " + speed + " " + DEFAULT_TICK_RATE + " "
+                    + (i > 6 ? "touch" : "notouch"));
+        }
+        return new LevelCatalogue(lines);
+    }
+
+    /**
+     * Returns a level, building it on first use.
+     *
+     * @param index the index of the level, starting at 0.
+     * @return the level.
+     * @throws IndexOutOfBoundsException if there is no level with that index.
+     */
+    public synchronized Level get(int index) {
+        Level level = levels[index];
+        if (level == null) {
+            int[] values = settings[index];
+            level = new Level(values[0], values[1], values[2], allowTrailTouch[index], values[3], obstacles[index]);
+            levels[index] = level;
+        }
+        return level;
+    }
+
+    public int size() {
+        return levels.length;
+    }
+}
@@ -2,34 +2,45 @@ package model;
 
 import java.awt.Color;
 import java.awt.Point;
-import java.awt.Dimension;
-import java.util.ArrayList;
-import java.util.List;
 
 
 /**
  * The Motorcycle class represents a player's motorcycle.
+ * <p>
+ * Positions are kept as plain coordinates, so moving and checking a motorcycle never creates
+ * objects. {@link #getPosition()} and the other point accessors return a copy that callers may
+ * keep or change freely; code that runs every tick should read the coordinates directly.
  * 
  * @author Isroilbek Jamolov
  */
 public class Motorcycle {
 
-    private Point position;
+    private int x;
+    private int y;
+    private int previousX;
+    private int previousY;
     private Direction direction;
-    private Point startPosition;
+    private int startX;
+    private int startY;
     private Direction startDirection;
     private int speed;
-    private final List<Trail> trails;
+    private final Trail trail;
     private final Color trailColor;
     private boolean allowTrailTouch;
+    private CollisionGrid collisionGrid;
+    private int ownerId;
+    private boolean crossedOwnTrail;
+    private boolean turned;
 
     public Motorcycle(Point startPosition, Direction startDirection, Color trailColor) {
-        position = startPosition;
+        startX = startPosition.x;
+        startY = startPosition.y;
+        x = previousX = startX;
+        y = previousY = startY;
         direction = startDirection;
-        this.startPosition = startPosition;
         this.startDirection = startDirection;
         speed = 3;
-        trails = new ArrayList<>();
+        trail = new Trail(trailColor);
         this.trailColor = trailColor;
         allowTrailTouch = false;
     }
@@ -42,48 +53,155 @@ public class Motorcycle {
      * Enum representing the directions the motorcycle can move.
      */
     public enum Direction {
-        UP, DOWN, LEFT, RIGHT
+        UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0);
+
+        private final int deltaX;
+        private final int deltaY;
+
+        Direction(int deltaX, int deltaY) {
+            this.deltaX = deltaX;
+            this.deltaY = deltaY;
+        }
+
+        public int getDeltaX() {
+            return deltaX;
+        }
+
+        public int getDeltaY() {
+            return deltaY;
+        }
+
+        /**
+         * @return the direction pointing the opposite way.
+         */
+        public Direction opposite() {
+            return switch (this) {
+                case UP -> DOWN;
+                case DOWN -> UP;
+                case LEFT -> RIGHT;
+                case RIGHT -> LEFT;
+            };
+        }
     }
 
     /**
      * Moves the motorcycle based on its current direction and speed.
      */
     public void move() {
-        switch (direction) {
-            case UP ->
-                position.y -= speed;
-            case DOWN ->
-                position.y += speed;
-            case LEFT ->
-                position.x -= speed;
-            case RIGHT ->
-                position.x += speed;
+        previousX = x;
+        previousY = y;
+        x += direction.getDeltaX() * speed;
+        y += direction.getDeltaY() * speed;
+        if (trail.isEmpty() || turned) {
+            trail.startSegment(previousX, previousY);
+        }
+        trail.extendTo(x, y);
+        turned = false;
+        if (collisionGrid != null) {
+            crossedOwnTrail = collisionGrid.markMove(ownerId, previousX, previousY, x, y);
+        }
+    }
+
+    /**
+     * Puts the motorcycle back into a recorded state and writes its trail into the collision grid.
+     *
+     * @param snapshot the recorded state of the round.
+     * @param player the index of this motorcycle's player in the snapshot.
+     */
+    void restore(GameSnapshot snapshot, int player) {
+        x = snapshot.getX(player);
+        y = snapshot.getY(player);
+        previousX = snapshot.getPreviousX(player);
+        previousY = snapshot.getPreviousY(player);
+        direction = snapshot.getDirection(player);
+        crossedOwnTrail = snapshot.hasCrossedOwnTrail(player);
+        turned = false;
+        trail.restore(snapshot.getTrail(player));
+        if (collisionGrid == null) {
+            return;
+        }
+        for (int i = 0; i < trail.getSegmentCount(); i++) {
+            markSegment(trail.getStartX(i), trail.getStartY(i), trail.getEndX(i), trail.getEndY(i));
+        }
+    }
+
+    /**
+     * Writes a trail segment into the collision grid the same way the moves along it did.
+     */
+    private void markSegment(int fromX, int fromY, int toX, int toY) {
+        if (collisionGrid.isSwept()) {
+            collisionGrid.markMove(ownerId, fromX, fromY, toX, toY);
+            return;
+        }
+        int stepX = Integer.signum(toX - fromX) * speed;
+        int stepY = Integer.signum(toY - fromY) * speed;
+        int steps = Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY)) / speed;
+        for (int i = 1; i <= steps; i++) {
+            collisionGrid.mark(ownerId, fromX + i * stepX, fromY + i * stepY);
         }
-        trails.add(new Trail(new Point(position), trailColor));
+    }
+
+    /**
+     * Attaches the motorcycle to the collision grid its trail is written into.
+     *
+     * @param collisionGrid the occupancy grid of the arena.
+     * @param ownerId the index of this motorcycle in the grid.
+     */
+    public void setCollisionGrid(CollisionGrid collisionGrid, int ownerId) {
+        this.collisionGrid = collisionGrid;
+        this.ownerId = ownerId;
     }
 
     /**
      * Updates the positions of motorcycles initial positions depending on the board's size.
      * 
-     * @param screenSize 
+     * @param width the width of the arena.
+     * @param height the height of the arena.
      */
-    public void updatePosition(Dimension screenSize) {
-        position.x = screenSize.width;
-        position.y = screenSize.height - 10;
+    public void updatePosition(int width, int height) {
+        x = width;
+        y = height - 10;
     }
 
     public void changeDirection(Direction newDirection) {
+        if (newDirection != direction) {
+            turned = true;
+        }
         direction = newDirection;
     }
 
     public void setStartPosition(Point startPosition) {
-        this.startPosition = startPosition;
+        setStartPosition(startPosition.x, startPosition.y);
+    }
+
+    public void setStartPosition(int startX, int startY) {
+        this.startX = startX;
+        this.startY = startY;
     }
 
     public void setStartDirection(Direction startDirection) {
         this.startDirection = startDirection;
     }
 
+    /**
+     * @return a copy of the position the motorcycle starts each round at.
+     */
+    public Point getStartPosition() {
+        return new Point(startX, startY);
+    }
+
+    public int getStartX() {
+        return startX;
+    }
+
+    public int getStartY() {
+        return startY;
+    }
+
+    public Direction getStartDirection() {
+        return startDirection;
+    }
+
     public void setSpeed(int speed) {
         this.speed = speed;
     }
@@ -92,17 +210,48 @@ public class Motorcycle {
      * Resets the motorcycles to their initial positions.
      */
     public void reset() {
-        position = new Point(startPosition);
+        x = previousX = startX;
+        y = previousY = startY;
         direction = startDirection;
-        trails.clear();
+        trail.clear();
+        crossedOwnTrail = false;
+        turned = false;
     }
 
-    public List<Trail> getTrails() {
-        return trails;
+    public Trail getTrail() {
+        return trail;
     }
 
+    /**
+     * @return a copy of the current position.
+     */
     public Point getPosition() {
-        return position;
+        return new Point(x, y);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns the position the motorcycle occupied before its last move.
+     * 
+     * @return a copy of the start point of the segment covered by the last move.
+     */
+    public Point getPreviousPosition() {
+        return new Point(previousX, previousY);
+    }
+
+    public int getPreviousX() {
+        return previousX;
+    }
+
+    public int getPreviousY() {
+        return previousY;
     }
 
     public int getSpeed() {
@@ -113,6 +262,19 @@ public class Motorcycle {
         return trailColor;
     }
 
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Checks if the last move ended on a cell of the motorcycle's own trail.
+     *
+     * @return true if the current position was already part of the trail.
+     */
+    public boolean hasCrossedOwnTrail() {
+        return crossedOwnTrail;
+    }
+
     public boolean getAllowTrailTouch() {
         return allowTrailTouch;
     }
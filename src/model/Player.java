@@ -13,6 +13,8 @@ public class Player {
     private final String name;
     private final Motorcycle motorcycle;
     private final int score;
+    private PlayerController controller;
+    private boolean eliminated;
     
     public Player(String name, Color color, Point initialPosition, Direction initialDirection) {
         this.name = name;
@@ -25,6 +27,22 @@ public class Player {
      */
     public void reset() {
         motorcycle.reset();
+        eliminated = false;
+    }
+
+    /**
+     * Takes the player out of the current round after a crash.
+     */
+    public void eliminate() {
+        eliminated = true;
+    }
+
+    void setEliminated(boolean eliminated) {
+        this.eliminated = eliminated;
+    }
+
+    public boolean isEliminated() {
+        return eliminated;
     }
 
     public String getName() {
@@ -38,4 +56,26 @@ public class Player {
     public int getScore() {
         return score;
     }
+
+    public PlayerController getController() {
+        return controller;
+    }
+
+    /**
+     * Lets a bot or script steer the player instead of the keyboard.
+     * A controller that is replaced is closed if it holds resources, such as a search thread.
+     * 
+     * @param controller the controller, or null for a human player.
+     */
+    public void setController(PlayerController controller) {
+        PlayerController previous = this.controller;
+        this.controller = controller;
+        if (previous != controller && previous instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.out.println("controller close error: " + e.getMessage());
+            }
+        }
+    }
 }
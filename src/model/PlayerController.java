@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * The PlayerController interface steers a player's motorcycle without the keyboard,
+ * for example a bot or a scripted player. The game asks it for a direction at the
+ * start of every tick.
+ *
+ * @author Isroilbek Jamolov
+ */
+public interface PlayerController {
+
+    /**
+     * Chooses the direction the motorcycle moves in during the coming tick.
+     *
+     * @param game the game being played.
+     * @param player the player being steered.
+     * @return the new direction, or null to keep the current one.
+     */
+    Motorcycle.Direction chooseDirection(Game game, Player player);
+}
@@ -0,0 +1,117 @@
+package model;
+
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * The RenderState class represents what the board needs to draw a round as it was at the end
+ * of a tick: the level, and the position, color and trail of every motorcycle. The game
+ * publishes a new state after every tick, and the view reads the latest one without taking
+ * the game's lock, so ticking and painting can run on different threads.
+ * <p>
+ * A state is never changed after it is published. Trails are not copied: the state refers to
+ * the trail's own coordinate array and remembers how many segments it had. A trail only ever
+ * appends to that array, moves a new array in when it grows and starts a fresh one when it is
+ * cleared, so the segments a state refers to stay as they were. Only the end of the last
+ * segment keeps moving, which is why the state takes it from the motorcycle's position instead.
+ *
+ * @author Isroilbek Jamolov
+ */
+public final class RenderState {
+    private final int tick;
+    private final Level level;
+    private final int[] positions;
+    private final Color[] colors;
+    private final boolean[] eliminated;
+    private final int[] generations;
+    private final int[] segmentCounts;
+    private final int[][] segments;
+
+    RenderState(int tick, Level level, List<Player> players) {
+        int count = players.size();
+        this.tick = tick;
+        this.level = level;
+        positions = new int[count * 4];
+        colors = new Color[count];
+        eliminated = new boolean[count];
+        generations = new int[count];
+        segmentCounts = new int[count];
+        segments = new int[count][];
+        for (int i = 0; i < count; i++) {
+            Motorcycle motorcycle = players.get(i).getMotorcycle();
+            Trail trail = motorcycle.getTrail();
+            positions[i * 4] = motorcycle.getX();
+            positions[i * 4 + 1] = motorcycle.getY();
+            positions[i * 4 + 2] = motorcycle.getPreviousX();
+            positions[i * 4 + 3] = motorcycle.getPreviousY();
+            colors[i] = motorcycle.getTrailColor();
+            eliminated[i] = players.get(i).isEliminated();
+            generations[i] = trail.getGeneration();
+            segmentCounts[i] = trail.getSegmentCount();
+            segments[i] = trail.segmentArray();
+        }
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getPlayerCount() {
+        return colors.length;
+    }
+
+    public int getX(int player) {
+        return positions[player * 4];
+    }
+
+    public int getY(int player) {
+        return positions[player * 4 + 1];
+    }
+
+    public int getPreviousX(int player) {
+        return positions[player * 4 + 2];
+    }
+
+    public int getPreviousY(int player) {
+        return positions[player * 4 + 3];
+    }
+
+    public Color getColor(int player) {
+        return colors[player];
+    }
+
+    public boolean isEliminated(int player) {
+        return eliminated[player];
+    }
+
+    /**
+     * @return the generation of the player's trail, see {@link Trail#getGeneration()}.
+     */
+    public int getGeneration(int player) {
+        return generations[player];
+    }
+
+    public int getSegmentCount(int player) {
+        return segmentCounts[player];
+    }
+
+    public int getStartX(int player, int segment) {
+        return segments[player][segment * 4];
+    }
+
+    public int getStartY(int player, int segment) {
+        return segments[player][segment * 4 + 1];
+    }
+
+    public int getEndX(int player, int segment) {
+        return segment == segmentCounts[player] - 1 ? getX(player) : segments[player][segment * 4 + 2];
+    }
+
+    public int getEndY(int player, int segment) {
+        return segment == segmentCounts[player] - 1 ? getY(player) : segments[player][segment * 4 + 3];
+    }
+}
@@ -0,0 +1,516 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The SearchBot class is a bot that looks ahead instead of only avoiding the next wall. It
+ * copies the arena into a compact grid with one cell per move, then searches the moves of
+ * itself and its nearest opponent with alpha-beta pruning, one move deeper at a time, until
+ * its time budget for the tick runs out. Positions are rated by territory: every free cell
+ * counts for whoever reaches it first, found with a breadth-first flood fill from both heads.
+ * Once no opponent can reach the bot any more, only its own moves are searched, so it fills
+ * the space it has left.
+ * <p>
+ * The grid and every search buffer are allocated once and only grown for a larger arena, so
+ * a decision does not allocate.
+ * <p>
+ * In background mode the search runs on a thread of its own. Every tick the bot only copies
+ * the arena, predicts where its move in this tick takes it and hands the copy over; the
+ * direction found for it is used in the next tick. The simulation tick therefore never waits
+ * for the search. If the search has not answered in time, the bot keeps going straight, or
+ * turns away from a wall right in front of it.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class SearchBot implements PlayerController, AutoCloseable {
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000;
+
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+    private static final int MAX_DEPTH = 64;
+    private static final int EVALUATION_RADIUS = 60;
+    private static final int WIN = 1_000_000;
+    private static final int FALLBACK_LOOKAHEAD = 8;
+    private static final byte FREE = 0;
+    private static final byte BLOCKED = 1;
+    private static final byte NEUTRAL = 0;
+    private static final byte MINE = 1;
+    private static final byte THEIRS = 2;
+
+    private final long budgetNanos;
+    private final boolean background;
+
+    private final Object lock = new Object();
+    private Arena incoming = new Arena();
+    private Arena pending = new Arena();
+    private Arena searching = new Arena();
+    private boolean hasPending;
+    private int postCount;
+    private int lastPostTick = -1;
+    private Motorcycle.Direction decision;
+    private int decisionPost = -1;
+    private Thread thread;
+    private volatile boolean running;
+
+    private int[] queue = new int[0];
+    private int[] distance = new int[0];
+    private byte[] owner = new byte[0];
+    private int[] seen = new int[0];
+    private int generation;
+    private long deadline;
+    private boolean aborted;
+    private volatile int lastDepth;
+
+    /**
+     * @param budgetNanos the time the search may take per tick, in nanoseconds.
+     * @param background true to search on a separate thread, one tick behind the game.
+     */
+    public SearchBot(long budgetNanos, boolean background) {
+        this.budgetNanos = budgetNanos;
+        this.background = background;
+    }
+
+    @Override
+    public Motorcycle.Direction chooseDirection(Game game, Player player) {
+        Motorcycle motorcycle = player.getMotorcycle();
+        if (!background) {
+            long start = System.nanoTime();
+            if (!copyArena(game, player, searching, null)) {
+                return null;
+            }
+            Motorcycle.Direction best = search(searching, start + budgetNanos);
+            return best == motorcycle.getDirection() ? null : best;
+        }
+
+        int tick = game.getTick();
+        Motorcycle.Direction choice = null;
+        synchronized (lock) {
+            if (decisionPost == postCount && lastPostTick == tick - 1) {
+                choice = decision;
+            }
+        }
+        if (choice == null || choice == motorcycle.getDirection().opposite()) {
+            choice = motorcycle.getDirection();
+        }
+        if (freeSteps(game, motorcycle, choice) == 0) {
+            choice = fallback(game, motorcycle);
+        }
+        if (copyArena(game, player, incoming, choice)) {
+            synchronized (lock) {
+                Arena posted = pending;
+                pending = incoming;
+                incoming = posted;
+                hasPending = true;
+                postCount++;
+                lastPostTick = tick;
+                lock.notify();
+            }
+            startThread();
+        }
+        return choice == motorcycle.getDirection() ? null : choice;
+    }
+
+    private void startThread() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::searchLoop, "search-bot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Searches every arena handed over by the game until the bot is closed.
+     */
+    private void searchLoop() {
+        while (running) {
+            int post;
+            synchronized (lock) {
+                while (!hasPending && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                Arena next = pending;
+                pending = searching;
+                searching = next;
+                hasPending = false;
+                post = postCount;
+            }
+            Motorcycle.Direction best = search(searching, System.nanoTime() + budgetNanos);
+            synchronized (lock) {
+                decision = best;
+                decisionPost = post;
+            }
+        }
+    }
+
+    /**
+     * Stops the search thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notify();
+        }
+    }
+
+    /**
+     * @return the number of moves the last finished search looked ahead.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Copies the arena into a grid of the cells the motorcycle can reach, one move apart.
+     *
+     * @param moving the direction the motorcycle moves in during this tick, or null to search from
+     *               its current position.
+     * @return false if the motorcycle is outside the arena.
+     */
+    private boolean copyArena(Game game, Player player, Arena arena, Motorcycle.Direction moving) {
+        Motorcycle motorcycle = player.getMotorcycle();
+        int speed = Math.max(1, motorcycle.getSpeed());
+        int id = motorcycle.getOwnerId();
+        int originX = Math.floorMod(motorcycle.getX(), speed);
+        int originY = Math.floorMod(motorcycle.getY(), speed);
+        int cols = (game.getMaxWidth() - originX) / speed + 1;
+        int rows = (game.getMaxHeight() - originY) / speed + 1;
+        int column = (motorcycle.getX() - originX) / speed;
+        int row = (motorcycle.getY() - originY) / speed;
+        if (motorcycle.getX() < 0 || motorcycle.getY() < 0 || column >= cols || row >= rows) {
+            return false;
+        }
+        arena.resize(cols, rows);
+        byte[] cells = arena.cells;
+        for (int r = 0; r < rows; r++) {
+            int y = originY + r * speed;
+            int rowStart = r * cols;
+            for (int c = 0; c < cols; c++) {
+                cells[rowStart + c] = game.isBlocked(id, originX + c * speed, y) ? BLOCKED : FREE;
+            }
+        }
+        arena.head = row * cols + column;
+        cells[arena.head] = BLOCKED;
+        if (moving != null) {
+            int next = arena.neighbor(arena.head, moving.ordinal());
+            if (next >= 0) {
+                cells[next] = BLOCKED;
+                arena.head = next;
+            }
+        }
+
+        arena.opponent = -1;
+        int nearest = Integer.MAX_VALUE;
+        for (Player other : game.getPlayers()) {
+            if (other == player || other.isEliminated()) {
+                continue;
+            }
+            Motorcycle opponent = other.getMotorcycle();
+            int c = Math.round((float) (opponent.getX() - originX) / speed);
+            int r = Math.round((float) (opponent.getY() - originY) / speed);
+            c = Math.max(0, Math.min(cols - 1, c));
+            r = Math.max(0, Math.min(rows - 1, r));
+            int steps = Math.abs(c - arena.head % cols) + Math.abs(r - arena.head / cols);
+            if (steps < nearest) {
+                nearest = steps;
+                arena.opponent = r * cols + c;
+            }
+        }
+        if (arena.opponent >= 0) {
+            cells[arena.opponent] = BLOCKED;
+        }
+        return true;
+    }
+
+    /**
+     * Searches one move deeper at a time until the deadline passes or the outcome is certain.
+     *
+     * @return the best direction found, or null if every move crashes.
+     */
+    private Motorcycle.Direction search(Arena arena, long deadline) {
+        int size = arena.cols * arena.rows;
+        if (queue.length < size) {
+            queue = new int[size];
+            distance = new int[size];
+            owner = new byte[size];
+            seen = new int[size];
+            generation = 0;
+        }
+        this.deadline = deadline;
+        aborted = false;
+
+        int opponent = arena.opponent >= 0 && canReach(arena, arena.head, arena.opponent) ? arena.opponent : -1;
+        int best = -1;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (arena.isFree(arena.neighbor(arena.head, d))) {
+                best = d;
+                break;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        int freeCells = 0;
+        for (int i = 0; i < size; i++) {
+            freeCells += arena.cells[i] == FREE ? 1 : 0;
+        }
+
+        int depth = 0;
+        for (int limit = 1; limit <= Math.min(MAX_DEPTH, freeCells); limit++) {
+            int alpha = -WIN - 1;
+            int found = -1;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                int d = i == 0 ? best : (i == best ? 0 : i);
+                int next = arena.neighbor(arena.head, d);
+                if (!arena.isFree(next)) {
+                    continue;
+                }
+                arena.cells[next] = BLOCKED;
+                int score = opponent >= 0
+                        ? opponentMove(arena, next, opponent, limit, 1, alpha, WIN + 1)
+                        : botMove(arena, next, -1, limit - 1, 1, alpha, WIN + 1);
+                arena.cells[next] = FREE;
+                if (aborted) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    found = d;
+                }
+            }
+            if (aborted) {
+                break;
+            }
+            best = found < 0 ? best : found;
+            depth = limit;
+            if (alpha >= WIN - MAX_DEPTH * 2 || alpha <= -WIN + MAX_DEPTH * 2) {
+                break;
+            }
+        }
+        lastDepth = depth;
+        return DIRECTIONS[best];
+    }
+
+    private int botMove(Arena arena, int bot, int opponent, int depth, int ply, int alpha, int beta) {
+        if (timeUp()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(arena, bot, opponent);
+        }
+        boolean moved = false;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int next = arena.neighbor(bot, d);
+            if (!arena.isFree(next)) {
+                continue;
+            }
+            moved = true;
+            arena.cells[next] = BLOCKED;
+            int score = opponent >= 0
+                    ? opponentMove(arena, next, opponent, depth, ply + 1, alpha, beta)
+                    : botMove(arena, next, -1, depth - 1, ply + 1, alpha, beta);
+            arena.cells[next] = FREE;
+            if (aborted) {
+                return 0;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return moved ? alpha : -WIN + ply;
+    }
+
+    private int opponentMove(Arena arena, int bot, int opponent, int depth, int ply, int alpha, int beta) {
+        if (timeUp()) {
+            return 0;
+        }
+        boolean moved = false;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int next = arena.neighbor(opponent, d);
+            if (!arena.isFree(next)) {
+                continue;
+            }
+            moved = true;
+            arena.cells[next] = BLOCKED;
+            int score = botMove(arena, bot, next, depth - 1, ply + 1, alpha, beta);
+            arena.cells[next] = FREE;
+            if (aborted) {
+                return 0;
+            }
+            beta = Math.min(beta, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return moved ? beta : WIN - ply;
+    }
+
+    private boolean timeUp() {
+        if (!aborted && System.nanoTime() - deadline > 0) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Rates a position by the number of free cells the bot reaches before the opponent, minus
+     * the number the opponent reaches first. Cells both reach at the same time count for neither.
+     * Only cells within {@value #EVALUATION_RADIUS} moves are counted.
+     */
+    private int evaluate(Arena arena, int bot, int opponent) {
+        nextGeneration();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = bot;
+        visit(bot, 0, MINE);
+        if (opponent >= 0) {
+            queue[tail++] = opponent;
+            visit(opponent, 0, THEIRS);
+        }
+        int score = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int nextDistance = distance[cell] + 1;
+            if (nextDistance > EVALUATION_RADIUS) {
+                continue;
+            }
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int next = arena.neighbor(cell, d);
+                if (!arena.isFree(next)) {
+                    continue;
+                }
+                if (seen[next] != generation) {
+                    visit(next, nextDistance, owner[cell]);
+                    queue[tail++] = next;
+                    score += weight(owner[cell]);
+                } else if (distance[next] == nextDistance && owner[next] != owner[cell] && owner[next] != NEUTRAL) {
+                    score -= weight(owner[next]);
+                    owner[next] = NEUTRAL;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Checks if a free path leads from one cell to a neighbor of another.
+     */
+    private boolean canReach(Arena arena, int from, int to) {
+        nextGeneration();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        visit(from, 0, MINE);
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int next = arena.neighbor(cell, d);
+                if (next == to) {
+                    return true;
+                }
+                if (arena.isFree(next) && seen[next] != generation) {
+                    visit(next, 0, MINE);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void visit(int cell, int cellDistance, byte cellOwner) {
+        seen[cell] = generation;
+        distance[cell] = cellDistance;
+        owner[cell] = cellOwner;
+    }
+
+    private void nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+    }
+
+    private static int weight(byte cellOwner) {
+        return cellOwner == MINE ? 1 : cellOwner == THEIRS ? -1 : 0;
+    }
+
+    /**
+     * Picks the direction with the longest free run, preferring the current one, for ticks in
+     * which the search has not answered and the way ahead is blocked.
+     */
+    private static Motorcycle.Direction fallback(Game game, Motorcycle motorcycle) {
+        Motorcycle.Direction best = motorcycle.getDirection();
+        int bestSteps = freeSteps(game, motorcycle, best);
+        for (Motorcycle.Direction direction : DIRECTIONS) {
+            if (direction == motorcycle.getDirection().opposite()) {
+                continue;
+            }
+            int steps = freeSteps(game, motorcycle, direction);
+            if (steps > bestSteps) {
+                best = direction;
+                bestSteps = steps;
+            }
+        }
+        return best;
+    }
+
+    private static int freeSteps(Game game, Motorcycle motorcycle, Motorcycle.Direction direction) {
+        int x = motorcycle.getX();
+        int y = motorcycle.getY();
+        for (int step = 0; step < FALLBACK_LOOKAHEAD; step++) {
+            x += direction.getDeltaX() * motorcycle.getSpeed();
+            y += direction.getDeltaY() * motorcycle.getSpeed();
+            if (game.isBlocked(motorcycle.getOwnerId(), x, y)) {
+                return step;
+            }
+        }
+        return FALLBACK_LOOKAHEAD;
+    }
+
+    /**
+     * The Arena class represents the compact copy of the arena a search runs on: one cell per
+     * position the bot can move to, each free or blocked.
+     */
+    private static final class Arena {
+        private byte[] cells = new byte[0];
+        private int cols;
+        private int rows;
+        private int head;
+        private int opponent;
+
+        void resize(int cols, int rows) {
+            this.cols = cols;
+            this.rows = rows;
+            if (cells.length < cols * rows) {
+                cells = new byte[cols * rows];
+            }
+        }
+
+        /**
+         * @return the index of the neighboring cell in a direction, or -1 at the edge.
+         */
+        int neighbor(int cell, int direction) {
+            int column = cell % cols;
+            return switch (DIRECTIONS[direction]) {
+                case UP -> cell >= cols ? cell - cols : -1;
+                case DOWN -> cell + cols < cols * rows ? cell + cols : -1;
+                case LEFT -> column > 0 ? cell - 1 : -1;
+                case RIGHT -> column < cols - 1 ? cell + 1 : -1;
+            };
+        }
+
+        boolean isFree(int cell) {
+            return cell >= 0 && cells[cell] == FREE;
+        }
+    }
+}
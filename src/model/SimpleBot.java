@@ -0,0 +1,72 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * The SimpleBot class is a bot that keeps going straight until its path is about to be
+ * blocked, then turns towards the direction with the longest free run.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class SimpleBot implements PlayerController {
+    private static final int LOOKAHEAD_TICKS = 40;
+    private static final int SAFE_TICKS = 4;
+
+    private final Random random;
+    private final double turnChance;
+
+    /**
+     * @param seed the seed of the bot's random choices.
+     * @param turnChance the chance of turning on any tick even though the way ahead is free.
+     */
+    public SimpleBot(long seed, double turnChance) {
+        this.random = new Random(seed);
+        this.turnChance = turnChance;
+    }
+
+    @Override
+    public Motorcycle.Direction chooseDirection(Game game, Player player) {
+        Motorcycle motorcycle = player.getMotorcycle();
+        Motorcycle.Direction current = motorcycle.getDirection();
+        int ahead = freeTicks(game, motorcycle, current);
+        if (ahead >= SAFE_TICKS && random.nextDouble() >= turnChance) {
+            return null;
+        }
+
+        Motorcycle.Direction best = current;
+        int bestTicks = ahead;
+        for (Motorcycle.Direction direction : Motorcycle.Direction.values()) {
+            if (direction == current || direction == current.opposite()) {
+                continue;
+            }
+            int ticks = freeTicks(game, motorcycle, direction);
+            if (ticks > bestTicks || (ticks == bestTicks && random.nextBoolean())) {
+                best = direction;
+                bestTicks = ticks;
+            }
+        }
+        return best == current ? null : best;
+    }
+
+    /**
+     * Counts how many ticks the motorcycle could move in a direction before being blocked.
+     */
+    private int freeTicks(Game game, Motorcycle motorcycle, Motorcycle.Direction direction) {
+        int owner = motorcycle.getOwnerId();
+        int stepX = direction.getDeltaX();
+        int stepY = direction.getDeltaY();
+        int speed = motorcycle.getSpeed();
+        int x = motorcycle.getX();
+        int y = motorcycle.getY();
+        for (int tick = 0; tick < LOOKAHEAD_TICKS; tick++) {
+            for (int step = 0; step < speed; step++) {
+                x += stepX;
+                y += stepY;
+                if (game.isBlocked(owner, x, y)) {
+                    return tick;
+                }
+            }
+        }
+        return LOOKAHEAD_TICKS;
+    }
+}
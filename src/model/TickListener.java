@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * The TickListener interface is notified at the end of every tick of a game,
+ * for example to record the round.
+ *
+ * @author Isroilbek Jamolov
+ */
+public interface TickListener {
+
+    /**
+     * Called after every motorcycle has moved in a tick, including the tick that ends the round.
+     *
+     * @param game the game being played.
+     */
+    void tickFinished(Game game);
+}
@@ -2,36 +2,178 @@ package model;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Point;
+import java.util.Arrays;
 
 /**
- * The Trail class represents a trail left by a motorcycle.
- * 
+ * The Trail class represents the trail left by a motorcycle.
+ * The trail is stored as straight segments in a flat coordinate array, and a new
+ * segment is only started when the motorcycle turns.
+ *
  * @author Isroilbek Jamolov
  */
 public class Trail {
-    private final Point position;
+    private static final int COORDINATES_PER_SEGMENT = 4;
+
     private final Color color;
-    
-    public Trail(Point startPosition, Color color) {
-        position = startPosition;
+    private int[] segments;
+    private int segmentCount;
+    private int generation;
+
+    public Trail(Color color) {
         this.color = color;
+        segments = new int[16 * COORDINATES_PER_SEGMENT];
+    }
+
+    /**
+     * Starts a new segment at the given point.
+     *
+     * @param x the x coordinate of the segment's start.
+     * @param y the y coordinate of the segment's start.
+     */
+    public void startSegment(int x, int y) {
+        if ((segmentCount + 1) * COORDINATES_PER_SEGMENT > segments.length) {
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        int offset = segmentCount * COORDINATES_PER_SEGMENT;
+        segments[offset] = x;
+        segments[offset + 1] = y;
+        segments[offset + 2] = x;
+        segments[offset + 3] = y;
+        segmentCount++;
+    }
+
+    /**
+     * Moves the end of the last segment to the given point.
+     *
+     * @param x the x coordinate of the segment's new end.
+     * @param y the y coordinate of the segment's new end.
+     */
+    public void extendTo(int x, int y) {
+        int offset = (segmentCount - 1) * COORDINATES_PER_SEGMENT;
+        segments[offset + 2] = x;
+        segments[offset + 3] = y;
+    }
+
+    /**
+     * Replaces the trail with the given segments.
+     *
+     * @param coordinates the segment coordinates, four per segment.
+     */
+    void restore(int[] coordinates) {
+        segments = Arrays.copyOf(coordinates, Math.max(coordinates.length, 16 * COORDINATES_PER_SEGMENT));
+        segmentCount = coordinates.length / COORDINATES_PER_SEGMENT;
+        generation++;
+    }
+
+    /**
+     * Copies the segments of the trail.
+     *
+     * @return the segment coordinates, four per segment.
+     */
+    int[] copySegments() {
+        return Arrays.copyOf(segments, segmentCount * COORDINATES_PER_SEGMENT);
+    }
+
+    /**
+     * Returns the array the segments are stored in, without copying it. The segments written
+     * so far are never overwritten: the trail moves to a new array when it grows or is cleared.
+     *
+     * @return the segment coordinates, four per segment, followed by unused space.
+     */
+    int[] segmentArray() {
+        return segments;
+    }
+
+    /**
+     * Removes every segment from the trail. The trail starts a new array, since views may
+     * still be drawing from the old one.
+     */
+    public void clear() {
+        segments = new int[16 * COORDINATES_PER_SEGMENT];
+        segmentCount = 0;
+        generation++;
     }
-    
+
     /**
      * Draw the trail on the board.
-     * 
+     *
+     * @param g to draw the shape and it's color.
+     * @param cellSize the width and height of a single trail cell.
+     */
+    public void draw(Graphics g, int cellSize) {
+        if (isEmpty()) {
+            return;
+        }
+        int last = segmentCount - 1;
+        draw(g, cellSize, getEndX(last), getEndY(last));
+    }
+
+    /**
+     * Draw the trail on the board with its last segment ending at the given point.
+     *
      * @param g to draw the shape and it's color.
-     * @param width the width of the shape of the trail.
-     * @param height the height of the shape of the trail.
+     * @param cellSize the width and height of a single trail cell.
+     * @param headX the x coordinate the last segment is drawn up to.
+     * @param headY the y coordinate the last segment is drawn up to.
      */
-    public void draw(Graphics g, int width, int height) {
+    public void draw(Graphics g, int cellSize, int headX, int headY) {
         g.setColor(color);
-        g.fillRect(position.x, position.y, width, height);
+        for (int i = 0; i < segmentCount; i++) {
+            int endX = i == segmentCount - 1 ? headX : getEndX(i);
+            int endY = i == segmentCount - 1 ? headY : getEndY(i);
+            int left = Math.min(getStartX(i), endX);
+            int top = Math.min(getStartY(i), endY);
+            int width = Math.abs(endX - getStartX(i)) + cellSize;
+            int height = Math.abs(endY - getStartY(i)) + cellSize;
+            g.fillRect(left, top, width, height);
+        }
+    }
+
+    public boolean isEmpty() {
+        return segmentCount == 0;
+    }
+
+    /**
+     * Returns how many times the trail has been cleared, so that views can tell
+     * a new trail apart from one that only grew.
+     *
+     * @return the number of times {@link #clear()} was called.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Adds up the lengths of the segments.
+     *
+     * @return the length of the trail in pixels.
+     */
+    public int getLength() {
+        int length = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            length += Math.abs(getEndX(i) - getStartX(i)) + Math.abs(getEndY(i) - getStartY(i));
+        }
+        return length;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getStartX(int segment) {
+        return segments[segment * COORDINATES_PER_SEGMENT];
+    }
+
+    public int getStartY(int segment) {
+        return segments[segment * COORDINATES_PER_SEGMENT + 1];
+    }
+
+    public int getEndX(int segment) {
+        return segments[segment * COORDINATES_PER_SEGMENT + 2];
     }
 
-    public Point getPosition() {
-        return position;
+    public int getEndY(int segment) {
+        return segments[segment * COORDINATES_PER_SEGMENT + 3];
     }
 
     public Color getColor() {
@@ -0,0 +1,154 @@
+package network;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Connection class represents a client connected to the game server.
+ * Incoming bytes are only read on the server's selector thread, while outgoing
+ * messages can be queued from any thread and are written by the selector thread.
+ * <p>
+ * Every delta depends on the ones before it, so a client cannot skip messages and catch up.
+ * A client that lets more than {@link #MAX_QUEUED_BYTES} pile up is disconnected instead of
+ * the server buffering a message for it every tick without limit.
+ *
+ * @author Isroilbek Jamolov
+ */
+class Connection {
+    static final int MAX_QUEUED_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer inbound = ByteBuffer.allocate(Protocol.MAX_MESSAGE_SIZE + 2);
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private volatile boolean fellBehind;
+    private String name;
+    private Color color;
+    private Match match;
+    private int slot;
+    private volatile boolean closed;
+
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Reads what the client sent and returns the next complete message, if any.
+     * Call repeatedly until it returns null.
+     *
+     * @return the message starting with its type byte, or null if no complete message is buffered.
+     * @throws IOException if the client disconnected.
+     */
+    ByteBuffer nextMessage() throws IOException {
+        if (inbound.position() < 2 || inbound.position() < 2 + (inbound.getShort(0) & 0xFFFF)) {
+            if (channel.read(inbound) < 0) {
+                throw new IOException("Client disconnected");
+            }
+        }
+        if (inbound.position() < 2) {
+            return null;
+        }
+        int length = inbound.getShort(0) & 0xFFFF;
+        if (inbound.position() < 2 + length) {
+            return null;
+        }
+        byte[] message = new byte[length];
+        inbound.flip();
+        inbound.position(2);
+        inbound.get(message);
+        inbound.compact();
+        return ByteBuffer.wrap(message);
+    }
+
+    /**
+     * Queues a message to be written by the selector thread. If the client already has
+     * {@link #MAX_QUEUED_BYTES} waiting, the message is dropped and the next flush fails.
+     *
+     * @param message the framed message.
+     */
+    void send(ByteBuffer message) {
+        if (closed || fellBehind) {
+            return;
+        }
+        if (queuedBytes.addAndGet(message.remaining()) > MAX_QUEUED_BYTES) {
+            fellBehind = true;
+            return;
+        }
+        outbound.offer(message);
+    }
+
+    /**
+     * Writes as much of the queued messages as the socket accepts without blocking.
+     *
+     * @return true if everything was written.
+     * @throws IOException if the client disconnected or fell too far behind.
+     */
+    boolean flush() throws IOException {
+        if (fellBehind) {
+            throw new IOException("Client fell more than " + MAX_QUEUED_BYTES + " bytes behind");
+        }
+        ByteBuffer message;
+        while ((message = outbound.peek()) != null) {
+            int written = channel.write(message);
+            queuedBytes.addAndGet(-written);
+            if (message.hasRemaining()) {
+                return false;
+            }
+            outbound.poll();
+        }
+        return true;
+    }
+
+    void close() {
+        closed = true;
+        outbound.clear();
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("connection close error: " + e.getMessage());
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Color getColor() {
+        return color;
+    }
+
+    void setPlayer(String name, Color color) {
+        this.name = name;
+        this.color = color;
+    }
+
+    Match getMatch() {
+        return match;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setMatch(Match match, int slot) {
+        this.match = match;
+        this.slot = slot;
+    }
+}
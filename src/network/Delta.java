@@ -0,0 +1,119 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import model.Game;
+import model.InputLog;
+import model.Motorcycle;
+import model.Player;
+
+/**
+ * The Delta class writes and applies the payload of a {@link Protocol#DELTA} message: the
+ * tick, the turns applied in it, which players moved and who was eliminated.
+ * <p>
+ * Players that moved are sent as a bitset with one bit per player slot. A player still in the
+ * round is not always moved: a player that moved earlier in the tick can eliminate it before
+ * its own move, for example in a head-on collision, so a client cannot work out who moved
+ * from who is still in the round.
+ * <p>
+ * The server calls {@link #recordBefore(Game)} before every tick and {@link #write} after it;
+ * a client applies the payload to its own copy of the game with {@link #apply}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public final class Delta {
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+
+    private final boolean[] eliminatedBefore;
+    private final int[] positionsBefore;
+    private int loggedTurns;
+
+    /**
+     * @param playerCount the number of players in the game.
+     */
+    public Delta(int playerCount) {
+        eliminatedBefore = new boolean[playerCount];
+        positionsBefore = new int[playerCount * 2];
+    }
+
+    /**
+     * Records which players are still in the round and where they are, before a tick is played.
+     *
+     * @param game the game about to play a tick.
+     */
+    public void recordBefore(Game game) {
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            eliminatedBefore[i] = players.get(i).isEliminated();
+            positionsBefore[i * 2] = players.get(i).getMotorcycle().getX();
+            positionsBefore[i * 2 + 1] = players.get(i).getMotorcycle().getY();
+        }
+    }
+
+    /**
+     * Writes what the tick played since {@link #recordBefore(Game)} changed.
+     *
+     * @param encoder the buffer the message is written to.
+     * @param game the game that played the tick.
+     */
+    public void write(ByteBuffer encoder, Game game) {
+        List<Player> players = game.getPlayers();
+        Protocol.putVarint(encoder, game.getTick());
+        InputLog log = game.getInputLog();
+        Protocol.putVarint(encoder, log.getTurnCount() - loggedTurns);
+        for (; loggedTurns < log.getTurnCount(); loggedTurns++) {
+            Protocol.putVarint(encoder, log.getPlayerIndex(loggedTurns));
+            encoder.put((byte) log.getDirection(loggedTurns).ordinal());
+        }
+        for (int first = 0; first < players.size(); first += Byte.SIZE) {
+            int moved = 0;
+            for (int i = first; i < Math.min(first + Byte.SIZE, players.size()); i++) {
+                Motorcycle motorcycle = players.get(i).getMotorcycle();
+                if (motorcycle.getX() != positionsBefore[i * 2] || motorcycle.getY() != positionsBefore[i * 2 + 1]) {
+                    moved |= 1 << (i - first);
+                }
+            }
+            encoder.put((byte) moved);
+        }
+        int eliminations = 0;
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isEliminated() && !eliminatedBefore[i]) {
+                eliminations++;
+            }
+        }
+        Protocol.putVarint(encoder, eliminations);
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isEliminated() && !eliminatedBefore[i]) {
+                Protocol.putVarint(encoder, i);
+            }
+        }
+    }
+
+    /**
+     * Applies the changes of one tick to a copy of the game.
+     *
+     * @param message the payload of the delta message.
+     * @param game the copy of the game.
+     */
+    public static void apply(ByteBuffer message, Game game) {
+        List<Player> players = game.getPlayers();
+        Protocol.getVarint(message);
+        int turns = Protocol.getVarint(message);
+        for (int i = 0; i < turns; i++) {
+            Player player = players.get(Protocol.getVarint(message));
+            player.getMotorcycle().changeDirection(DIRECTIONS[message.get()]);
+        }
+        for (int first = 0; first < players.size(); first += Byte.SIZE) {
+            int moved = message.get();
+            for (int i = first; i < Math.min(first + Byte.SIZE, players.size()); i++) {
+                if ((moved & 1 << (i - first)) != 0) {
+                    players.get(i).getMotorcycle().move();
+                }
+            }
+        }
+        int eliminations = Protocol.getVarint(message);
+        for (int i = 0; i < eliminations; i++) {
+            players.get(Protocol.getVarint(message)).eliminate();
+        }
+    }
+}
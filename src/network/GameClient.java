@@ -0,0 +1,278 @@
+package network;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import model.Game;
+import model.Motorcycle;
+import model.Player;
+import model.PlayerController;
+
+/**
+ * The GameClient class connects to a game server and keeps a local copy of the match.
+ * The copy is built from the start message and extended with every delta: turned motorcycles
+ * change direction, every motorcycle that moved advances along its trail and eliminated players
+ * are taken out. The local copy can be drawn, and a {@link PlayerController} can steer the
+ * client's own motorcycle by looking at it.
+ * <p>
+ * The copy is only changed while holding the lock of its {@link Game}, like the local game.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class GameClient implements Runnable {
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+
+    private final SocketChannel channel;
+    private final String name;
+    private final Color color;
+    private final PlayerController controller;
+    private final int matchesToPlay;
+    private final ByteBuffer header = ByteBuffer.allocate(2);
+    private final ByteBuffer outbound = ByteBuffer.allocate(Protocol.MAX_MESSAGE_SIZE + 2);
+    private volatile Game game;
+    private int slot;
+    private int matchesPlayed;
+    private int wins;
+    private int mismatches;
+    private long bytesReceived;
+    private long deltasReceived;
+
+    /**
+     * Connects to a server.
+     *
+     * @param host the host of the server.
+     * @param port the port of the server.
+     * @param name the name of the player.
+     * @param color the color of the player's trail.
+     * @param controller steers the player, or null to only watch.
+     * @param matchesToPlay the number of matches to join one after the other.
+     * @throws IOException if the server cannot be reached.
+     */
+    public GameClient(String host, int port, String name, Color color, PlayerController controller,
+            int matchesToPlay) throws IOException {
+        this.name = name;
+        this.color = color;
+        this.controller = controller;
+        this.matchesToPlay = matchesToPlay;
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Joins matches and follows them until enough have been played or the server disconnects.
+     */
+    @Override
+    public void run() {
+        try {
+            join();
+            while (matchesPlayed < matchesToPlay) {
+                handle(readMessage());
+            }
+        } catch (IOException e) {
+            System.out.println("client error: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("client close error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Asks the server for a place in the next match.
+     */
+    private void join() throws IOException {
+        outbound.clear();
+        int start = Protocol.startMessage(outbound, Protocol.JOIN);
+        Protocol.putString(outbound, name);
+        outbound.putInt(color.getRGB());
+        Protocol.endMessage(outbound, start);
+        write();
+    }
+
+    /**
+     * Asks the server to turn the client's motorcycle.
+     *
+     * @param direction the new direction.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void turn(Motorcycle.Direction direction) throws IOException {
+        outbound.clear();
+        int start = Protocol.startMessage(outbound, Protocol.TURN);
+        outbound.put((byte) direction.ordinal());
+        Protocol.endMessage(outbound, start);
+        write();
+    }
+
+    private void write() throws IOException {
+        outbound.flip();
+        while (outbound.hasRemaining()) {
+            channel.write(outbound);
+        }
+    }
+
+    private ByteBuffer readMessage() throws IOException {
+        header.clear();
+        readFully(header);
+        ByteBuffer message = ByteBuffer.allocate(header.getShort(0) & 0xFFFF);
+        readFully(message);
+        bytesReceived += 2 + message.capacity();
+        message.flip();
+        return message;
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Server disconnected");
+            }
+        }
+    }
+
+    private void handle(ByteBuffer message) throws IOException {
+        byte type = message.get();
+        if (type == Protocol.START) {
+            game = startMatch(message);
+        } else if (type == Protocol.DELTA) {
+            applyDelta(message);
+            deltasReceived++;
+            steer();
+        } else if (type == Protocol.END) {
+            endMatch(message);
+        }
+    }
+
+    /**
+     * Builds the local copy of a match from its start message.
+     */
+    private Game startMatch(ByteBuffer message) {
+        slot = Protocol.getVarint(message);
+        int levelIndex = Protocol.getVarint(message);
+        int speed = Protocol.getVarint(message);
+        int width = Protocol.getVarint(message);
+        int height = Protocol.getVarint(message);
+        int flags = message.get();
+        int playerCount = Protocol.getVarint(message);
+
+        Game match = new Game();
+        Point[] spawns = new Point[playerCount];
+        Motorcycle.Direction[] directions = new Motorcycle.Direction[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            String playerName = Protocol.getString(message);
+            Color playerColor = new Color(message.getInt(), true);
+            spawns[i] = new Point(Protocol.getSignedVarint(message), Protocol.getSignedVarint(message));
+            directions[i] = DIRECTIONS[message.get()];
+            match.addPlayer(new Player(playerName, playerColor, new Point(spawns[i]), directions[i]));
+        }
+        match.setSweptCollision((flags & Protocol.SWEPT_COLLISION) != 0);
+        match.selectLevel(levelIndex);
+        if (match.getMaxWidth() != width || match.getMaxHeight() != height) {
+            throw new IllegalStateException("Server plays level " + (levelIndex + 1) + " on a " + width + "x" + height + " arena");
+        }
+        for (int i = 0; i < playerCount; i++) {
+            Motorcycle motorcycle = match.getPlayers().get(i).getMotorcycle();
+            motorcycle.setSpeed(speed);
+            motorcycle.setAllowTrailTouch((flags & Protocol.ALLOW_TRAIL_TOUCH) != 0);
+            motorcycle.setStartPosition(spawns[i]);
+            motorcycle.setStartDirection(directions[i]);
+            match.getPlayers().get(i).reset();
+        }
+        match.start();
+        return match;
+    }
+
+    /**
+     * Applies the changes of one tick to the local copy.
+     */
+    private void applyDelta(ByteBuffer message) {
+        Game match = game;
+        synchronized (match) {
+            Delta.apply(message, match);
+        }
+    }
+
+    /**
+     * Lets the controller steer the client's motorcycle on the local copy.
+     */
+    private void steer() throws IOException {
+        if (controller == null) {
+            return;
+        }
+        Motorcycle.Direction direction;
+        Motorcycle motorcycle;
+        synchronized (game) {
+            Player player = game.getPlayers().get(slot);
+            if (player.isEliminated()) {
+                return;
+            }
+            motorcycle = player.getMotorcycle();
+            direction = controller.chooseDirection(game, player);
+        }
+        if (direction != null && direction != motorcycle.getDirection() && direction != motorcycle.getDirection().opposite()) {
+            turn(direction);
+        }
+    }
+
+    /**
+     * Checks the local copy against the final positions sent by the server and joins the next match.
+     */
+    private void endMatch(ByteBuffer message) throws IOException {
+        Protocol.getVarint(message);
+        int winner = Protocol.getVarint(message) - 1;
+        synchronized (game) {
+            for (Player player : game.getPlayers()) {
+                Point position = player.getMotorcycle().getPosition();
+                if (position.x != Protocol.getSignedVarint(message) | position.y != Protocol.getSignedVarint(message)) {
+                    mismatches++;
+                }
+            }
+        }
+        if (winner == slot) {
+            wins++;
+        }
+        matchesPlayed++;
+        if (matchesPlayed < matchesToPlay) {
+            join();
+        }
+    }
+
+    /**
+     * @return the local copy of the current match, or null before the first match starts.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    public int getMatchesPlayed() {
+        return matchesPlayed;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * @return the number of motorcycles whose final position differed from the server's.
+     */
+    public int getMismatches() {
+        return mismatches;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getDeltasReceived() {
+        return deltasReceived;
+    }
+}
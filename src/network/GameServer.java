@@ -0,0 +1,320 @@
+package network;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import controller.TickScheduler;
+import metrics.Metrics;
+import model.LevelCatalogue;
+import model.Motorcycle;
+
+/**
+ * The GameServer class hosts many matches at once for clients connecting over TCP.
+ * The server is authoritative: clients only send the turns they want to make, and the
+ * server plays every tick and sends each client a compact delta of what changed.
+ * <p>
+ * All sockets are served by a single selector thread with non-blocking NIO, while the
+ * ticks of the matches are multiplexed onto a small worker pool by a {@link TickScheduler}. Clients that join are
+ * grouped into a new match as soon as enough of them are waiting.
+ * <p>
+ * Options: {@code --port=N --players=N --level=N --tick-rate=N --threads=N}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class GameServer implements Runnable {
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+
+    private final int playersPerMatch;
+    private final int levelIndex;
+    private final int tickRate;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final TickScheduler ticker;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final List<Connection> lobby = new ArrayList<>();
+    private final Map<Integer, Match> matches = new ConcurrentHashMap<>();
+    private final Queue<String> finishedReports = new ConcurrentLinkedQueue<>();
+    private final Thread selectorThread;
+    private int matchCount;
+    private volatile boolean running;
+
+    /**
+     * Opens the server socket.
+     *
+     * @param port the port to listen on, or 0 for any free port.
+     * @param playersPerMatch the number of players in each match.
+     * @param levelIndex the index of the level the matches are played on.
+     * @param tickRate the number of ticks per second of each match, or 0 for the level's own tick rate.
+     * @param tickThreads the number of threads running match ticks.
+     * @throws IOException if the port cannot be opened.
+     */
+    public GameServer(int port, int playersPerMatch, int levelIndex, int tickRate, int tickThreads) throws IOException {
+        this.playersPerMatch = playersPerMatch;
+        this.levelIndex = levelIndex;
+        this.tickRate = tickRate;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        ticker = new TickScheduler(tickThreads);
+        selectorThread = new Thread(this, "game-server");
+    }
+
+    /**
+     * Starts serving clients.
+     */
+    public void start() {
+        running = true;
+        ticker.start();
+        selectorThread.start();
+    }
+
+    /**
+     * Stops every match and closes every connection.
+     */
+    public void stop() {
+        running = false;
+        ticker.shutdown();
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Serves the sockets until the server is stopped.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    write(connection);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection client = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            read(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(client);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            System.out.println("server error: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void read(Connection connection) {
+        try {
+            ByteBuffer message;
+            while ((message = connection.nextMessage()) != null) {
+                handle(connection, message);
+            }
+        } catch (IOException | RuntimeException e) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Handles a message from a client.
+     */
+    private void handle(Connection connection, ByteBuffer message) {
+        byte type = message.get();
+        if (type == Protocol.JOIN) {
+            String name = Protocol.getString(message);
+            connection.setPlayer(name, new Color(message.getInt(), true));
+            join(connection);
+        } else if (type == Protocol.TURN) {
+            Match match = connection.getMatch();
+            if (match != null && !match.isFinished()) {
+                match.turn(connection.getSlot(), DIRECTIONS[message.get()]);
+            }
+        }
+    }
+
+    /**
+     * Puts a client in the lobby and starts a match when enough clients are waiting.
+     */
+    private void join(Connection connection) {
+        Match current = connection.getMatch();
+        if ((current != null && !current.isFinished()) || lobby.contains(connection)) {
+            return;
+        }
+        lobby.add(connection);
+        if (lobby.size() < playersPerMatch) {
+            return;
+        }
+        List<Connection> players = new ArrayList<>(lobby.subList(0, playersPerMatch));
+        lobby.subList(0, playersPerMatch).clear();
+        Match match = new Match(++matchCount, players, levelIndex, this);
+        matches.put(match.getId(), match);
+        match.start();
+        match.scheduled(ticker.schedule(match, tickRate > 0 ? tickRate : match.getLevelTickRate()));
+    }
+
+    /**
+     * Asks the selector thread to write the messages queued for a client.
+     * Called by match ticks after queuing a message.
+     */
+    void wantsWrite(Connection connection) {
+        pendingWrites.offer(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Forgets a match that has ended.
+     */
+    void matchEnded(Match match) {
+        matches.remove(match.getId());
+        finishedReports.offer(match.report());
+    }
+
+    private void write(Connection connection) {
+        if (connection.isClosed()) {
+            return;
+        }
+        try {
+            boolean done = connection.flush();
+            connection.getKey().interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException | RuntimeException e) {
+            disconnect(connection);
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        lobby.remove(connection);
+        connection.close();
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                connection.close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.out.println("server close error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Describes the tick time and bandwidth of every running match.
+     *
+     * @return one line per match.
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%d matches running, %d ticks, %d overruns, %d dropped ticks", matches.size(),
+                ticker.getTickCount(), ticker.getOverrunCount(), ticker.getDroppedTickCount()));
+        for (Match match : matches.values()) {
+            lines.add(match.report());
+        }
+        return lines;
+    }
+
+    /**
+     * Takes the final reports of the matches that ended since the last call.
+     *
+     * @return one line per match.
+     */
+    public List<String> drainFinishedReports() {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = finishedReports.poll()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Entry point for running a standalone server.
+     *
+     * @param args the server options.
+     * @throws Exception if the server cannot start.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        int level = Integer.parseInt(options.getOrDefault("level", "1"));
+        int levelCount = LevelCatalogue.getDefault().size();
+        if (level < 1 || level > levelCount) {
+            System.out.println("Unknown level " + level + ", the catalogue has levels 1 to " + levelCount);
+            return;
+        }
+        GameServer server = new GameServer(
+                Integer.parseInt(options.getOrDefault("port", String.valueOf(Protocol.DEFAULT_PORT))),
+                Integer.parseInt(options.getOrDefault("players", "2")),
+                level - 1,
+                Integer.parseInt(options.getOrDefault("tick-rate", "0")),
+                Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        Metrics.registerMBean();
+        Metrics.startLogging(Integer.getInteger("tron.metricsLog", 0));
+        server.start();
+        System.out.println("Tron server listening on port " + server.getPort());
+        while (true) {
+            Thread.sleep(5000);
+            for (String line : server.drainFinishedReports()) {
+                System.out.println(line + " (ended)");
+            }
+            for (String line : server.report()) {
+                System.out.println(line);
+            }
+        }
+    }
+}
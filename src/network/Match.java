@@ -0,0 +1,206 @@
+package network;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import controller.TickScheduler;
+import model.Game;
+import model.Level;
+import model.Motorcycle;
+import model.Player;
+
+/**
+ * The Match class represents one game hosted by the server.
+ * Each tick it advances its own {@link Game}, encodes what changed as a delta and queues
+ * it for every client in the match. Turns from clients go through the game's input queue,
+ * so the match never has to lock while a tick is running.
+ *
+ * @author Isroilbek Jamolov
+ */
+class Match implements Runnable {
+    private final int id;
+    private final List<Connection> connections;
+    private final GameServer server;
+    private final Game game = new Game();
+    private final ByteBuffer encoder = ByteBuffer.allocate(Protocol.MAX_MESSAGE_SIZE + 2);
+    private final Delta delta;
+    private volatile TickScheduler.ScheduledTicks ticks;
+    private final long startedAt = System.nanoTime();
+
+    private long bytesSent;
+    private volatile int tick;
+    private volatile boolean finished;
+
+    /**
+     * @param id the number of the match.
+     * @param connections the clients playing, one per player slot.
+     * @param levelIndex the index of the level played.
+     * @param server the server hosting the match.
+     */
+    Match(int id, List<Connection> connections, int levelIndex, GameServer server) {
+        this.id = id;
+        this.connections = connections;
+        this.server = server;
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            game.addPlayer(new Player(connection.getName(), connection.getColor(), new Point(0, 0),
+                    Motorcycle.Direction.RIGHT));
+            connection.setMatch(this, i);
+        }
+        game.selectLevel(levelIndex);
+        delta = new Delta(connections.size());
+    }
+
+    /**
+     * Sends every client the description of the match. Must be called before the first tick.
+     */
+    void start() {
+        Level level = game.getCurrentLevel();
+        for (int slot = 0; slot < connections.size(); slot++) {
+            encoder.clear();
+            int start = Protocol.startMessage(encoder, Protocol.START);
+            Protocol.putVarint(encoder, slot);
+            Protocol.putVarint(encoder, game.getCurrentLevelIndex());
+            Protocol.putVarint(encoder, level.getSpeed());
+            Protocol.putVarint(encoder, level.getWidth());
+            Protocol.putVarint(encoder, level.getHeight());
+            encoder.put((byte) ((level.isAllowTrailTouch() ? Protocol.ALLOW_TRAIL_TOUCH : 0)
+                    | (game.isSweptCollision() ? Protocol.SWEPT_COLLISION : 0)));
+            Protocol.putVarint(encoder, connections.size());
+            for (Player player : game.getPlayers()) {
+                Motorcycle motorcycle = player.getMotorcycle();
+                Protocol.putString(encoder, player.getName());
+                encoder.putInt(motorcycle.getTrailColor().getRGB());
+                Protocol.putSignedVarint(encoder, motorcycle.getStartX());
+                Protocol.putSignedVarint(encoder, motorcycle.getStartY());
+                encoder.put((byte) motorcycle.getStartDirection().ordinal());
+            }
+            Protocol.endMessage(encoder, start);
+            send(connections.get(slot), encoded());
+        }
+    }
+
+    /**
+     * Plays one tick and sends its delta to every client.
+     */
+    @Override
+    public void run() {
+        if (finished) {
+            return;
+        }
+        delta.recordBefore(game);
+        game.update();
+        tick = game.getTick();
+
+        encoder.clear();
+        int start = Protocol.startMessage(encoder, Protocol.DELTA);
+        delta.write(encoder, game);
+        Protocol.endMessage(encoder, start);
+        broadcast();
+
+        if (game.isGameOver()) {
+            sendEnd();
+        }
+    }
+
+    private void sendEnd() {
+        finished = true;
+        encoder.clear();
+        int start = Protocol.startMessage(encoder, Protocol.END);
+        Protocol.putVarint(encoder, game.getTick());
+        Protocol.putVarint(encoder, game.getPlayers().indexOf(game.getWinner()) + 1);
+        for (Player player : game.getPlayers()) {
+            Protocol.putSignedVarint(encoder, player.getMotorcycle().getX());
+            Protocol.putSignedVarint(encoder, player.getMotorcycle().getY());
+        }
+        Protocol.endMessage(encoder, start);
+        broadcast();
+        TickScheduler.ScheduledTicks scheduledTicks = ticks;
+        if (scheduledTicks != null) {
+            scheduledTicks.cancel();
+        }
+        server.matchEnded(this);
+    }
+
+    /**
+     * Hands the match its scheduled ticks, so it can cancel them when it ends.
+     *
+     * @param ticks the scheduled ticks.
+     */
+    void scheduled(TickScheduler.ScheduledTicks ticks) {
+        this.ticks = ticks;
+        if (finished) {
+            ticks.cancel();
+        }
+    }
+
+    /**
+     * Submits a turn received from a client.
+     *
+     * @param slot the player slot of the client.
+     * @param direction the requested direction.
+     */
+    void turn(int slot, Motorcycle.Direction direction) {
+        game.getInputQueue().submit(slot, direction);
+    }
+
+    private void broadcast() {
+        byte[] frame = encoded();
+        for (Connection connection : connections) {
+            send(connection, frame);
+        }
+    }
+
+    private byte[] encoded() {
+        return Arrays.copyOf(encoder.array(), encoder.position());
+    }
+
+    private void send(Connection connection, byte[] frame) {
+        if (connection.isClosed()) {
+            return;
+        }
+        connection.send(ByteBuffer.wrap(frame));
+        server.wantsWrite(connection);
+        synchronized (this) {
+            bytesSent += frame.length;
+        }
+    }
+
+    /**
+     * @return the number of ticks per second of the level played.
+     */
+    int getLevelTickRate() {
+        return game.getCurrentLevel().getTickRate();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    List<Connection> getConnections() {
+        return connections;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Describes the tick time, tick overruns and bandwidth of the match.
+     */
+    String report() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long sent;
+        synchronized (this) {
+            sent = bytesSent;
+        }
+        TickScheduler.ScheduledTicks scheduledTicks = ticks;
+        String tickTime = scheduledTicks == null ? "not started" : String.format(
+                "tick time %.3fms avg / %.3fms max, %d overruns, %d dropped ticks, %.3fms max lateness",
+                scheduledTicks.getAverageTickMillis(), scheduledTicks.getMaxTickMillis(), scheduledTicks.getOverruns(),
+                scheduledTicks.getDroppedTicks(), scheduledTicks.getMaxLatenessMillis());
+        return String.format("match %d: %d players, tick %d, %s, %d bytes sent, %.1f KB/s",
+                id, connections.size(), tick, tickTime, sent, sent / 1024.0 / Math.max(seconds, 1e-9));
+    }
+}
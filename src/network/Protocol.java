@@ -0,0 +1,105 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Protocol class defines the messages exchanged between the game server and its clients.
+ * Every message is framed by a two byte length followed by a type byte and its payload.
+ * Numbers are written as variable length integers so that small values take a single byte.
+ * <p>
+ * A client sends {@link #JOIN} to be put into the next match and {@link #TURN} to steer.
+ * The server answers with {@link #START}, describing the level and every player, then sends
+ * one {@link #DELTA} per tick with only what changed: the turns applied in the tick, which
+ * players moved and who was eliminated (see {@link Delta}). Every motorcycle that moved advanced by the level's
+ * speed in its direction, which is enough for a client to extend the trails itself.
+ * {@link #END} closes the match with the winner and the final position of every motorcycle.
+ *
+ * @author Isroilbek Jamolov
+ */
+public final class Protocol {
+    public static final int DEFAULT_PORT = 7777;
+    public static final int MAX_MESSAGE_SIZE = 0xFFFF;
+
+    /** Client: name and color of the player. */
+    public static final byte JOIN = 1;
+    /** Client: the new direction. */
+    public static final byte TURN = 2;
+    /** Server: the player's slot, the level and every player's name, color and spawn. */
+    public static final byte START = 10;
+    /** Server: the changes made by one tick. */
+    public static final byte DELTA = 11;
+    /** Server: the winner and the final position of every motorcycle. */
+    public static final byte END = 12;
+
+    public static final int ALLOW_TRAIL_TOUCH = 1;
+    public static final int SWEPT_COLLISION = 2;
+
+    private Protocol() {
+    }
+
+    /**
+     * Starts a message in the buffer, leaving room for its length.
+     *
+     * @param buffer the buffer to write to.
+     * @param type the type of the message.
+     * @return the position of the message, to be passed to {@link #endMessage(ByteBuffer, int)}.
+     */
+    public static int startMessage(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        buffer.put(type);
+        return start;
+    }
+
+    /**
+     * Writes the length of a message started with {@link #startMessage(ByteBuffer, byte)}.
+     *
+     * @param buffer the buffer the message was written to.
+     * @param start the position of the message.
+     */
+    public static void endMessage(ByteBuffer buffer, int start) {
+        buffer.putShort(start, (short) (buffer.position() - start - 2));
+    }
+
+    public static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static void putSignedVarint(ByteBuffer buffer, int value) {
+        putVarint(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    public static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static int getSignedVarint(ByteBuffer buffer) {
+        int value = getVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[getVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,287 @@
+package persistence;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The BatchWriter class represents a background writer for records of one kind.
+ * Records are put on a bounded queue that a worker thread drains in batches, so the game
+ * never waits for the database and the database sees a few large writes instead of many
+ * small ones. When the store is unavailable the worker retries the batch with a growing
+ * delay and gives up after {@link #MAX_WRITE_ATTEMPTS} attempts, so the records behind it
+ * are not held up. A batch the store refuses outright, such as one with a value too long for
+ * it, is not retried: it is written one record at a time and only the refused records are
+ * given up.
+ * <p>
+ * What happens to records that do not fit in the queue, are given up or are still pending
+ * when the writer stops is left to the subclass.
+ *
+ * @param <T> the type of the records.
+ * @author Isroilbek Jamolov
+ */
+public abstract class BatchWriter<T> {
+    private static final long MIN_RETRY_MILLIS = 1_000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+    private static final long IDLE_POLL_MILLIS = 1_000;
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private volatile List<T> batch = List.of();
+    private volatile boolean running;
+    private Thread worker;
+
+    private volatile long lastFlushNanos;
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * @param name         the name of the worker thread, also used in error messages.
+     * @param capacity     the maximum number of records held in memory.
+     * @param maxBatchSize the maximum number of records written at once.
+     */
+    protected BatchWriter(String name, int capacity, int maxBatchSize) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Starts the background worker.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drain, name);
+        worker.setDaemon(true);
+        worker.start();
+        started();
+    }
+
+    /**
+     * Stops the background worker and hands every record that was not written yet to
+     * {@link #stopped}. A batch that is still being written when the worker does not stop in
+     * time is handed over as well, and may therefore be written twice.
+     */
+    public void stop() {
+        Thread stopping;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            stopping = worker;
+        }
+        stopping.interrupt();
+        try {
+            stopping.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<T> pending = new ArrayList<>(batch);
+        batch = List.of();
+        queue.drainTo(pending);
+        stopped(pending);
+    }
+
+    /**
+     * Queues a record to be written. This never blocks; if the queue is full the record is
+     * handed to {@link #overflowed}.
+     *
+     * @param record the record to write.
+     */
+    public void submit(T record) {
+        if (!queue.offer(record)) {
+            overflowed(record);
+        }
+    }
+
+    /**
+     * Puts a record back on the queue without handing it to {@link #overflowed}.
+     *
+     * @param record the record to write.
+     * @return false if the queue is full.
+     */
+    protected boolean requeue(T record) {
+        return queue.offer(record);
+    }
+
+    /**
+     * @return the number of records the queue has room for.
+     */
+    protected int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Worker loop: takes records off the queue in batches and writes them.
+     */
+    private void drain() {
+        while (running) {
+            try {
+                T first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    idle();
+                    continue;
+                }
+                List<T> next = new ArrayList<>();
+                next.add(first);
+                queue.drainTo(next, maxBatchSize - 1);
+                batch = next;
+                write(next);
+                batch = List.of();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, retrying while the store is unavailable. A batch that still fails after
+     * {@link #MAX_WRITE_ATTEMPTS} attempts is given up. A batch the store refuses is written
+     * one record at a time, so only the refused records are given up.
+     *
+     * @param records the records to write.
+     * @throws InterruptedException if the worker is stopped while waiting to retry.
+     */
+    private void write(List<T> records) throws InterruptedException {
+        long retryMillis = MIN_RETRY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(records);
+                return;
+            } catch (SQLException e) {
+                System.out.println(name + " error: " + e.getMessage());
+                failureCount.incrementAndGet();
+                if (isRefused(e)) {
+                    if (records.size() == 1) {
+                        refused(records.get(0));
+                    } else {
+                        for (T record : records) {
+                            write(List.of(record));
+                        }
+                    }
+                    return;
+                }
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    gaveUp(records);
+                    return;
+                }
+            }
+            Thread.sleep(retryMillis);
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    private void flush(List<T> records) throws SQLException {
+        long start = System.nanoTime();
+        store(records);
+        long nanos = System.nanoTime() - start;
+        lastFlushNanos = nanos;
+        totalFlushNanos.addAndGet(nanos);
+        flushCount.incrementAndGet();
+        writtenCount.addAndGet(records.size());
+    }
+
+    /**
+     * Tells a store refusing the records themselves apart from a store that cannot be reached:
+     * data exceptions (SQL state class 22) and constraint violations (class 23) will fail
+     * again however often they are retried. Anything else, such as a missing table or a
+     * missing permission, is treated as the store being unavailable.
+     */
+    private static boolean isRefused(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException
+                || state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * Writes a batch of records to the store.
+     *
+     * @param records the records to write.
+     * @throws SQLException if the batch was not written.
+     */
+    protected abstract void store(List<T> records) throws SQLException;
+
+    /**
+     * Called with a record the store refused on its own.
+     *
+     * @param record the record that will not be written.
+     */
+    protected abstract void refused(T record);
+
+    /**
+     * Called with a batch that could not be written after {@link #MAX_WRITE_ATTEMPTS} attempts.
+     *
+     * @param records the records that were not written.
+     */
+    protected abstract void gaveUp(List<T> records);
+
+    /**
+     * Called with a record that did not fit in the queue.
+     *
+     * @param record the record that was not queued.
+     */
+    protected abstract void overflowed(T record);
+
+    /**
+     * Called with the records that were not written when the writer stopped.
+     *
+     * @param records the records that were not written.
+     */
+    protected abstract void stopped(List<T> records);
+
+    /**
+     * Called on the calling thread once the worker is started.
+     */
+    protected void started() {
+    }
+
+    /**
+     * Called on the worker thread whenever the queue has been empty for a while.
+     */
+    protected void idle() {
+    }
+
+    /**
+     * @return the number of records waiting in memory, including the batch being written.
+     */
+    public int getQueueDepth() {
+        return queue.size() + batch.size();
+    }
+
+    /**
+     * @return the time the last successful flush took, in milliseconds.
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return the average time of a successful flush, in milliseconds.
+     */
+    public double getAverageFlushMillis() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushes;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+}
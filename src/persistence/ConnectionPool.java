@@ -0,0 +1,177 @@
+package persistence;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ConnectionPool class keeps a small number of database connections open and
+ * hands them out for the duration of a single operation. Connections are created
+ * lazily, so the game can start while the database is unreachable and connect later.
+ * <p>
+ * A connection the driver has closed, for instance after the link to the server broke
+ * during its last operation, is dropped when it is next borrowed. A round trip to check
+ * that the server still holds the connection is only made for connections that have been
+ * idle longer than {@link #VALIDATION_IDLE_MILLIS}, and never while holding the pool's lock,
+ * so borrowing a connection that was just used costs nothing.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATION_IDLE_MILLIS = 30_000;
+    private static final long BORROW_TIMEOUT_MILLIS = 5_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private int openCount;
+    private boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Takes a connection out of the pool, opening a new one if none is idle.
+     * The connection must be handed back with {@link #release(Connection)}.
+     *
+     * @return an open connection.
+     * @throws SQLException if the pool is closed, exhausted, or a connection cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BORROW_TIMEOUT_MILLIS);
+        while (true) {
+            IdleConnection reused = take(deadline);
+            if (reused == null) {
+                break;
+            }
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - reused.idleSince);
+            if (isUsable(reused.conn, idleMillis > VALIDATION_IDLE_MILLIS)) {
+                return reused.conn;
+            }
+            synchronized (this) {
+                openCount--;
+                notifyAll();
+            }
+            closeQuietly(reused.conn);
+        }
+        try {
+            Connection conn = DriverManager.getConnection(url, user, password);
+            System.out.println("Database connection established");
+            return conn;
+        } catch (SQLException e) {
+            synchronized (this) {
+                openCount--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection, or reserves room for a new one.
+     *
+     * @param deadline when to give up waiting, in {@link System#nanoTime()} terms.
+     * @return the idle connection, or null if a new connection is to be opened.
+     * @throws SQLException if the pool is closed or no connection became available in time.
+     */
+    private synchronized IdleConnection take(long deadline) throws SQLException {
+        while (true) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            IdleConnection reused = idle.pollFirst();
+            if (reused != null) {
+                return reused;
+            }
+            if (openCount < maxSize) {
+                openCount++;
+                return null;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SQLException("No connection available");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+    }
+
+    private boolean isUsable(Connection conn, boolean validate) {
+        try {
+            return !conn.isClosed() && (!validate || conn.isValid(VALIDATION_TIMEOUT_SECONDS));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands a connection back to the pool.
+     *
+     * @param conn the connection taken with {@link #borrow()}.
+     */
+    public void release(Connection conn) {
+        synchronized (this) {
+            notifyAll();
+            if (!closed) {
+                idle.addFirst(new IdleConnection(conn, System.nanoTime()));
+                return;
+            }
+            openCount--;
+        }
+        closeQuietly(conn);
+    }
+
+    /**
+     * Closes every idle connection. Connections still borrowed are closed when released.
+     */
+    public void close() {
+        List<IdleConnection> closing;
+        synchronized (this) {
+            closed = true;
+            closing = new ArrayList<>(idle);
+            openCount -= idle.size();
+            idle.clear();
+            notifyAll();
+        }
+        for (IdleConnection entry : closing) {
+            closeQuietly(entry.conn);
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.out.println("closeConnection error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The IdleConnection class represents a connection waiting in the pool and since when.
+     */
+    private static final class IdleConnection {
+        private final Connection conn;
+        private final long idleSince;
+
+        IdleConnection(Connection conn, long idleSince) {
+            this.conn = conn;
+            this.idleSince = idleSince;
+        }
+    }
+}
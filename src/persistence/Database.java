@@ -3,31 +3,55 @@ package persistence;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.Properties;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import model.Player;
+import java.util.Map;
+import metrics.Histogram;
+import metrics.Metrics;
 
 /**
  * The Database class handles interactions with the game's database.
+ * It is the {@link ScoreStore} used when a MySQL server is configured in {@value #PROPERTIES_FILE},
+ * and keeps the {@link MatchHistory} in the tables {@code match_history}, {@code match_player}
+ * and {@code level_stats}.
  *
  * @author Isroilbek Jamolov
  */
-public class Database {
+public class Database implements ScoreStore, MatchHistory {
+
+    public static final String PROPERTIES_FILE = "../../db.properties";
+    private static final int POOL_SIZE = 2;
+    private static final Histogram CALL_TIME = Metrics.timer("db.call");
+    private static final int MAX_ROWS_PER_STATEMENT = 64;
+    private static final String DRIVER_OPTIONS = "?serverTimezone=UTC&useSSL=false&allowPublicKeyRetrieval=true"
+            + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=32&rewriteBatchedStatements=true";
 
     private final String TABLE_NAME = "leader_board";
-    private final Connection conn;
+    private static final String MATCH_TABLE = "match_history";
+    private static final String MATCH_PLAYER_TABLE = "match_player";
+    private static final String LEVEL_STATS_TABLE = "level_stats";
+    private final ConnectionPool pool;
 
+    /**
+     * Reads the connection settings and sets up the connection pool.
+     * A single instance is meant to be created at startup and shared; connections
+     * are opened on first use and kept open between operations.
+     */
     public Database() {
-        Connection c = null;
+        ConnectionPool p = null;
         
         try {
             Properties props = new Properties();
-            props.load(new FileInputStream("../../db.properties"));
+            try (FileInputStream in = new FileInputStream(PROPERTIES_FILE)) {
+                props.load(in);
+            }
 
             String host = props.getProperty("db.host");
             String port = props.getProperty("db.port");
@@ -35,114 +59,383 @@ public class Database {
             String user = props.getProperty("db.user");
             String password = props.getProperty("db.password");
 
-            String url =
-                "jdbc:mysql://" + host + ":" + port + "/" + dbName +
-                "?serverTimezone=UTC&useSSL=false&allowPublicKeyRetrieval=true";
+            String url = "jdbc:mysql://" + host + ":" + port + "/" + dbName + DRIVER_OPTIONS;
 
             Class.forName("com.mysql.cj.jdbc.Driver");
-            c = DriverManager.getConnection(url, user, password);
+            p = new ConnectionPool(url, user, password, POOL_SIZE);
 
-            System.out.println("Database connection established");
-
-        } catch (ClassNotFoundException | SQLException | IOException ex) {
+        } catch (ClassNotFoundException | IOException ex) {
             System.out.println("No connection");
             ex.printStackTrace();
         }
-        this.conn = c;
+        this.pool = p;
     }
 
     /**
-     * Stores the high score for a player.
+     * Adds a batch of scores to the players' entries, creating missing entries.
+     * Scores of the same player are summed first, and the batch is written with a
+     * single upsert statement, or one per chunk in a transaction for very large batches,
+     * so either every score is written or none.
      *
-     * @param player the player whose score to store.
+     * @param records the scores to store.
+     * @throws SQLException if there is no connection or a statement fails.
      */
-    public void storeHighScore(Player player) {
-        String playerName = player.getName();
-        int newScore = player.getScore();
+    @Override
+    public void storeHighScores(List<ScoreRecord> records) throws SQLException {
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (ScoreRecord record : records) {
+            totals.merge(record.getPlayerName(), record.getScore(), Integer::sum);
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Integer>> rows = new ArrayList<>(totals.entrySet());
 
+        long start = System.nanoTime();
+        Connection conn = borrowConnection();
         try {
-            // First, get the current score
-            int currentScore = 0;
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT score FROM " + TABLE_NAME + " WHERE player_name = ?"
-            )) {
-                pstmt.setString(1, playerName);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    currentScore = rs.getInt("score");
+            if (rows.size() <= MAX_ROWS_PER_STATEMENT) {
+                upsertScores(conn, rows);
+                return;
+            }
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+                    upsertScores(conn, rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT)));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
                 }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        } finally {
+            release(conn, start);
+        }
+    }
 
-            // pdate the score in the database
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "UPDATE " + TABLE_NAME + " SET score = ? WHERE player_name = ?"
-            )) {
-                pstmt.setInt(1, currentScore + newScore);
-                pstmt.setString(2, playerName);
-                int affectedRows = pstmt.executeUpdate();
-
-                // If no existing score, insert a new one
-                if (affectedRows == 0) {
-                    try (PreparedStatement insertStmt = conn.prepareStatement(
-                            "INSERT INTO " + TABLE_NAME + " (player_name, score) VALUES (?, ?)"
-                    )) {
-                        insertStmt.setString(1, playerName);
-                        insertStmt.setInt(2, newScore);
-                        insertStmt.executeUpdate();
-                    }
-                }
+    /**
+     * Adds scores to the players' entries with one atomic statement.
+     * Relies on the unique key on player_name, so concurrent games recording a win
+     * for the same player cannot overwrite each other.
+     * <p>
+     * The statement is padded to a power of two rows by repeating the last player with a
+     * score of 0, so there are only a handful of different statements and each of them stays
+     * in the driver's cache of server-side prepared statements instead of being prepared again.
+     *
+     * @param conn the connection to use.
+     * @param rows the player names and the scores to add.
+     * @throws SQLException if the statement fails.
+     */
+    private void upsertScores(Connection conn, List<Map.Entry<String, Integer>> rows) throws SQLException {
+        int padded = rows.size() == 1 ? 1 : Integer.highestOneBit(rows.size() - 1) << 1;
+        StringBuilder sql = new StringBuilder("INSERT INTO " + TABLE_NAME + " (player_name, score) VALUES ");
+        for (int i = 0; i < padded; i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE score = score + VALUES(score)");
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Map.Entry<String, Integer> row : rows) {
+                pstmt.setString(index++, row.getKey());
+                pstmt.setInt(index++, row.getValue());
             }
-        } catch (SQLException e) {
-            System.out.println("storeHighScore error: " + e.getMessage());
-            e.printStackTrace();
+            String last = rows.get(rows.size() - 1).getKey();
+            for (int i = rows.size(); i < padded; i++) {
+                pstmt.setString(index++, last);
+                pstmt.setInt(index++, 0);
+            }
+            pstmt.executeUpdate();
         }
     }
 
     /**
-     * Retrieves the high scores from the database.
-     * 
-     * @return a list of high scores.
+     * Loads the total score of every player.
+     *
+     * @return the scores keyed by player name.
+     * @throws SQLException if there is no connection or the query fails.
      */
-    public List<String> getTopHighScores() {
-        List<String> scores = new ArrayList<>();
+    @Override
+    public Map<String, Integer> loadScores() throws SQLException {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        Connection conn = borrowConnection();
         try (PreparedStatement pstmt = conn.prepareStatement(
-                "SELECT player_name, SUM(score) AS total_score FROM " + TABLE_NAME + " GROUP BY player_name ORDER BY total_score DESC LIMIT 10"
+                "SELECT player_name, score FROM " + TABLE_NAME
         )) {
             ResultSet rs = pstmt.executeQuery();
-            int rank = 1;
             while (rs.next()) {
-                String playerName = rs.getString("player_name");
-                int score = rs.getInt("total_score");
-                scores.add(rank + ". " + playerName + ": " + score);
-                rank++;
+                scores.merge(rs.getString("player_name"), rs.getInt("score"), Integer::sum);
             }
-        } catch (SQLException e) {
-            System.out.println("getHighScores error: " + e.getMessage());
-            e.printStackTrace();
+        } finally {
+            release(conn, start);
         }
         return scores;
     }
 
     /**
-     * Closes the database connection.
+     * Stores a batch of matches in one transaction: a row per match, a row per player taking
+     * part, and the matches added to the totals of their levels.
+     *
+     * @param matches the matches to store.
+     * @throws SQLException if there is no connection or a statement fails.
      */
-    public void closeConnection() {
+    @Override
+    public void storeMatches(List<MatchRecord> matches) throws SQLException {
+        if (matches.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Connection conn = borrowConnection();
         try {
-            if (conn != null && !conn.isClosed()) {
-                conn.close();
+            conn.setAutoCommit(false);
+            try {
+                long[] ids = insertMatches(conn, matches);
+                insertMatchPlayers(conn, matches, ids);
+                updateLevelStats(conn, matches);
+                conn.commit();
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            System.out.println("closeConnection error: " + e.getMessage());
-            e.printStackTrace();
+        } finally {
+            release(conn, start);
         }
     }
 
-    public void clearLeaderBoard() {
-        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + TABLE_NAME)) {
+    /**
+     * Inserts a row per match as one JDBC batch.
+     *
+     * @return the ids the database gave the matches, in the same order.
+     */
+    private long[] insertMatches(Connection conn, List<MatchRecord> matches) throws SQLException {
+        long[] ids = new long[matches.size()];
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " + MATCH_TABLE
+                + " (finished_at, level, winner, duration_ms, ticks) VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (MatchRecord match : matches) {
+                pstmt.setTimestamp(1, new Timestamp(match.getFinishedAt()));
+                pstmt.setInt(2, match.getLevel());
+                pstmt.setString(3, match.getWinner());
+                pstmt.setLong(4, match.getDurationMillis());
+                pstmt.setInt(5, match.getTicks());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            ResultSet keys = pstmt.getGeneratedKeys();
+            for (int i = 0; i < ids.length; i++) {
+                if (!keys.next()) {
+                    throw new SQLException("No id was generated for match " + (i + 1) + " of the batch");
+                }
+                ids[i] = keys.getLong(1);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Inserts a row per player of every match, up to {@value #MAX_ROWS_PER_STATEMENT} rows per statement.
+     */
+    private void insertMatchPlayers(Connection conn, List<MatchRecord> matches, long[] ids) throws SQLException {
+        List<int[]> rows = new ArrayList<>();
+        for (int i = 0; i < matches.size(); i++) {
+            for (int slot = 0; slot < matches.get(i).getPlayerCount(); slot++) {
+                rows.add(new int[] {i, slot});
+            }
+        }
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<int[]> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("INSERT INTO " + MATCH_PLAYER_TABLE
+                    + " (match_id, slot, player_name, trail_length) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (int[] row : chunk) {
+                    MatchRecord match = matches.get(row[0]);
+                    pstmt.setLong(index++, ids[row[0]]);
+                    pstmt.setInt(index++, row[1]);
+                    pstmt.setString(index++, match.getPlayerName(row[1]));
+                    pstmt.setInt(index++, match.getTrailLength(row[1]));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Adds the matches to the totals of their levels with one upsert, so level statistics
+     * are read from one small row per level instead of being summed over every match.
+     */
+    private void updateLevelStats(Connection conn, List<MatchRecord> matches) throws SQLException {
+        Map<Integer, long[]> totals = new LinkedHashMap<>();
+        for (MatchRecord match : matches) {
+            long[] total = totals.computeIfAbsent(match.getLevel(), level -> new long[4]);
+            total[0]++;
+            total[1] += match.getWinner() == null ? 1 : 0;
+            total[2] += match.getDurationMillis();
+            total[3] += match.getTicks();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO " + LEVEL_STATS_TABLE
+                + " (level, matches, draws, total_duration_ms, total_ticks) VALUES ");
+        for (int i = 0; i < totals.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE matches = matches + VALUES(matches), draws = draws + VALUES(draws),"
+                + " total_duration_ms = total_duration_ms + VALUES(total_duration_ms),"
+                + " total_ticks = total_ticks + VALUES(total_ticks)");
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Map.Entry<Integer, long[]> total : totals.entrySet()) {
+                pstmt.setInt(index++, total.getKey());
+                for (long value : total.getValue()) {
+                    pstmt.setLong(index++, value);
+                }
+            }
             pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads a page of a player's matches with a keyset query: the index on
+     * {@code (player_name, match_id)} is read backwards from {@code beforeId}, so every page
+     * costs the same however many matches the player has played. The players of the page's
+     * matches are joined in by primary key in the same query.
+     *
+     * @param playerName the name of the player.
+     * @param beforeId   only matches with a smaller id are returned.
+     * @param limit      the maximum number of matches.
+     * @return the matches, newest first.
+     * @throws SQLException if there is no connection or the query fails.
+     */
+    @Override
+    public List<MatchRecord> getPlayerMatches(String playerName, long beforeId, int limit) throws SQLException {
+        List<MatchRecord> matches = new ArrayList<>();
+        long start = System.nanoTime();
+        Connection conn = borrowConnection();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT m.id, m.finished_at, m.level, m.winner, m.duration_ms, m.ticks, p.player_name, p.trail_length"
+                + " FROM (SELECT DISTINCT match_id FROM " + MATCH_PLAYER_TABLE
+                + " WHERE player_name = ? AND match_id < ? ORDER BY match_id DESC LIMIT ?) page"
+                + " JOIN " + MATCH_TABLE + " m ON m.id = page.match_id"
+                + " JOIN " + MATCH_PLAYER_TABLE + " p ON p.match_id = page.match_id"
+                + " ORDER BY m.id DESC, p.slot"
+        )) {
+            pstmt.setString(1, playerName);
+            pstmt.setLong(2, beforeId);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            List<String> names = new ArrayList<>();
+            List<Integer> trails = new ArrayList<>();
+            boolean more = rs.next();
+            while (more) {
+                long id = rs.getLong("id");
+                long finishedAt = rs.getTimestamp("finished_at").getTime();
+                int level = rs.getInt("level");
+                String winner = rs.getString("winner");
+                long durationMillis = rs.getLong("duration_ms");
+                int ticks = rs.getInt("ticks");
+                names.clear();
+                trails.clear();
+                do {
+                    names.add(rs.getString("player_name"));
+                    trails.add(rs.getInt("trail_length"));
+                    more = rs.next();
+                } while (more && rs.getLong("id") == id);
+                matches.add(new MatchRecord(id, finishedAt, level, winner, durationMillis, ticks,
+                        names.toArray(new String[0]), trails.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        } finally {
+            release(conn, start);
+        }
+        return matches;
+    }
+
+    /**
+     * Reads the totals of every level from their summary rows.
+     *
+     * @return the totals, ordered by level.
+     * @throws SQLException if there is no connection or the query fails.
+     */
+    @Override
+    public List<LevelStats> getLevelStats() throws SQLException {
+        List<LevelStats> stats = new ArrayList<>();
+        long start = System.nanoTime();
+        Connection conn = borrowConnection();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT level, matches, draws, total_duration_ms, total_ticks FROM " + LEVEL_STATS_TABLE + " ORDER BY level"
+        )) {
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                stats.add(new LevelStats(rs.getInt("level"), rs.getLong("matches"), rs.getLong("draws"),
+                        rs.getLong("total_duration_ms"), rs.getLong("total_ticks")));
+            }
+        } finally {
+            release(conn, start);
+        }
+        return stats;
+    }
+
+    /**
+     * Closes the database connections.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    public void clearLeaderBoard() {
+        try {
+            long start = System.nanoTime();
+            Connection conn = borrowConnection();
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + TABLE_NAME)) {
+                pstmt.executeUpdate();
+            } finally {
+                release(conn, start);
+            }
         } catch (SQLException e) {
             System.out.println("clearLeaderBoard error: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    /**
+     * Takes a connection from the pool.
+     *
+     * @return an open connection, to be released back to the pool after use.
+     * @throws SQLException if the database is not configured or cannot be reached.
+     */
+    private Connection borrowConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("No connection");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Returns a connection to the pool and records how long the call held it, including
+     * the wait for a free connection.
+     *
+     * @param conn the borrowed connection.
+     * @param start the time the call asked for the connection, from {@link System#nanoTime()}.
+     */
+    private void release(Connection conn, long start) {
+        pool.release(conn);
+        CALL_TIME.record(System.nanoTime() - start);
+    }
 }
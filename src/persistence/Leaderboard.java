@@ -0,0 +1,201 @@
+package persistence;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Leaderboard class keeps every player's total score in memory, ordered by rank.
+ * It is loaded from the {@link ScoreStore} once at startup and then updated with each recorded
+ * win, which is also queued to be written to the store in the background. Reading
+ * the leaderboard never touches the store.
+ * <p>
+ * Wins recorded before the leaderboard is loaded are kept until they are written. The store
+ * is read while the queue is not writing, so when the loaded scores arrive, a win is either
+ * part of them or still waiting, and only the waiting ones are added on top.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class Leaderboard {
+    private static final long WARM_UP_RETRY_MILLIS = 30_000;
+
+    private final ScoreStore store;
+    private final ScoreWriteQueue scoreQueue;
+    private final Map<String, Integer> scores = new HashMap<>();
+    private final List<String> ranking = new ArrayList<>();
+    private final Set<ScoreRecord> unwrittenBeforeWarmUp = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean warm;
+
+    /**
+     * @param store the store the leaderboard is loaded from.
+     * @param scoreQueue the queue recorded scores are written through.
+     */
+    public Leaderboard(ScoreStore store, ScoreWriteQueue scoreQueue) {
+        this.store = store;
+        this.scoreQueue = scoreQueue;
+        if (scoreQueue != null) {
+            scoreQueue.setWriteListener(this::written);
+        }
+    }
+
+    /**
+     * Loads the leaderboard from the store in the background, retrying until it succeeds.
+     */
+    public void warmUp() {
+        Thread loader = new Thread(() -> {
+            while (true) {
+                try {
+                    if (scoreQueue == null) {
+                        load(store.loadScores());
+                    } else {
+                        scoreQueue.runBetweenWrites(() -> load(store.loadScores()));
+                    }
+                    return;
+                } catch (SQLException e) {
+                    System.out.println("leaderboard warm-up error: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(WARM_UP_RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "leaderboard-warm-up");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Replaces the leaderboard with scores loaded from the store, keeping the
+     * scores that were recorded before and are not written to the store yet.
+     *
+     * @param loaded the total scores keyed by player name.
+     */
+    synchronized void load(Map<String, Integer> loaded) {
+        scores.clear();
+        ranking.clear();
+        scores.putAll(loaded);
+        for (ScoreRecord record : unwrittenBeforeWarmUp) {
+            scores.merge(record.getPlayerName(), record.getScore(), Integer::sum);
+        }
+        unwrittenBeforeWarmUp.clear();
+        ranking.addAll(scores.keySet());
+        ranking.sort(this::compareRank);
+        warm = true;
+    }
+
+    /**
+     * Adds a score to a player's total and queues it to be written to the store.
+     *
+     * @param playerName the name of the player.
+     * @param score the score to add.
+     */
+    public void recordScore(String playerName, int score) {
+        ScoreRecord record = new ScoreRecord(playerName, score);
+        synchronized (this) {
+            if (!warm) {
+                unwrittenBeforeWarmUp.add(record);
+            }
+            Integer previous = scores.get(playerName);
+            if (previous != null) {
+                ranking.remove(indexOf(playerName, previous));
+            }
+            scores.put(playerName, (previous == null ? 0 : previous) + score);
+            int insertAt = -Collections.binarySearch(ranking, playerName, this::compareRank) - 1;
+            ranking.add(insertAt, playerName);
+        }
+        if (scoreQueue != null) {
+            scoreQueue.submit(record);
+        }
+    }
+
+    /**
+     * Forgets wins recorded before the warm-up once they are written, as the store has them now.
+     *
+     * @param records the scores the queue wrote.
+     */
+    private synchronized void written(List<ScoreRecord> records) {
+        if (!warm) {
+            records.forEach(unwrittenBeforeWarmUp::remove);
+        }
+    }
+
+    /**
+     * Returns the best players.
+     *
+     * @param count the maximum number of entries.
+     * @return the entries ordered by rank.
+     */
+    public synchronized List<LeaderboardEntry> getTop(int count) {
+        int size = Math.min(count, ranking.size());
+        List<LeaderboardEntry> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String playerName = ranking.get(i);
+            top.add(new LeaderboardEntry(playerName, scores.get(playerName), i + 1));
+        }
+        return top;
+    }
+
+    /**
+     * Looks up a player's position on the leaderboard.
+     *
+     * @param playerName the name of the player.
+     * @return the player's entry, or null if the player has no score.
+     */
+    public synchronized LeaderboardEntry getEntry(String playerName) {
+        Integer score = scores.get(playerName);
+        if (score == null) {
+            return null;
+        }
+        return new LeaderboardEntry(playerName, score, indexOf(playerName, score) + 1);
+    }
+
+    /**
+     * Checks if the leaderboard has been loaded from the store.
+     *
+     * @return true once the warm-up has finished.
+     */
+    public synchronized boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Finds a player in the ranking by binary search.
+     */
+    private int indexOf(String playerName, int score) {
+        int low = 0;
+        int high = ranking.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            String other = ranking.get(middle);
+            int order = compare(other, scores.get(other), playerName, score);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int compareRank(String first, String second) {
+        return compare(first, scores.get(first), second, scores.get(second));
+    }
+
+    /**
+     * Orders players by descending score, then by name.
+     */
+    private static int compare(String firstName, int firstScore, String secondName, int secondScore) {
+        if (firstScore != secondScore) {
+            return Integer.compare(secondScore, firstScore);
+        }
+        return firstName.compareTo(secondName);
+    }
+}
@@ -0,0 +1,35 @@
+package persistence;
+
+/**
+ * The LeaderboardEntry class represents a player's position on the leaderboard.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class LeaderboardEntry {
+    private final String playerName;
+    private final int score;
+    private final int rank;
+
+    public LeaderboardEntry(String playerName, int score, int rank) {
+        this.playerName = playerName;
+        this.score = score;
+        this.rank = rank;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    @Override
+    public String toString() {
+        return rank + ". " + playerName + ": " + score;
+    }
+}
@@ -0,0 +1,48 @@
+package persistence;
+
+/**
+ * The LevelStats class represents the totals of every match played on a level.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class LevelStats {
+    private final int level;
+    private final long matches;
+    private final long draws;
+    private final long totalDurationMillis;
+    private final long totalTicks;
+
+    public LevelStats(int level, long matches, long draws, long totalDurationMillis, long totalTicks) {
+        this.level = level;
+        this.matches = matches;
+        this.draws = draws;
+        this.totalDurationMillis = totalDurationMillis;
+        this.totalTicks = totalTicks;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public double getAverageDurationMillis() {
+        return matches == 0 ? 0 : (double) totalDurationMillis / matches;
+    }
+
+    public double getAverageTicks() {
+        return matches == 0 ? 0 : (double) totalTicks / matches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Level %d: %d matches, %d draws, %.1fs and %.0f ticks on average",
+                level, matches, draws, getAverageDurationMillis() / 1000, getAverageTicks());
+    }
+}
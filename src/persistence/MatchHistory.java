@@ -0,0 +1,43 @@
+package persistence;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The MatchHistory interface represents where finished matches are kept. Matches are stored
+ * in batches, a player's matches are read a page at a time, newest first, and the totals of
+ * every level are kept up to date as matches are stored, so none of the queries has to look
+ * at every match.
+ *
+ * @author Isroilbek Jamolov
+ */
+public interface MatchHistory {
+
+    /**
+     * Stores a batch of matches; either every match is stored or none.
+     *
+     * @param matches the matches to store.
+     * @throws SQLException if the matches cannot be stored.
+     */
+    void storeMatches(List<MatchRecord> matches) throws SQLException;
+
+    /**
+     * Returns a page of a player's matches, newest first. The first page is read with
+     * {@link Long#MAX_VALUE}, every further page with the id of the last match of the page before.
+     *
+     * @param playerName the name of the player.
+     * @param beforeId   only matches with a smaller id are returned.
+     * @param limit      the maximum number of matches.
+     * @return the matches.
+     * @throws SQLException if the matches cannot be read.
+     */
+    List<MatchRecord> getPlayerMatches(String playerName, long beforeId, int limit) throws SQLException;
+
+    /**
+     * Returns the totals of every level a match was played on.
+     *
+     * @return the totals, ordered by level.
+     * @throws SQLException if the totals cannot be read.
+     */
+    List<LevelStats> getLevelStats() throws SQLException;
+}
@@ -0,0 +1,60 @@
+package persistence;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MatchHistoryQueue class writes finished matches to the {@link MatchHistory} in the
+ * background with a {@link BatchWriter}, so a round never waits for the database. Unlike
+ * scores, matches that do not fit in the queue, that the history refuses or that still cannot
+ * be written when the writer gives up are dropped and counted: the history is statistics, not
+ * something players are owed.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class MatchHistoryQueue extends BatchWriter<MatchRecord> {
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final MatchHistory history;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param history  the history the matches are written to.
+     * @param capacity the maximum number of matches held in memory.
+     */
+    public MatchHistoryQueue(MatchHistory history, int capacity) {
+        super("match-history-writer", capacity, MAX_BATCH_SIZE);
+        this.history = history;
+    }
+
+    @Override
+    protected void store(List<MatchRecord> matches) throws SQLException {
+        history.storeMatches(matches);
+    }
+
+    @Override
+    protected void refused(MatchRecord match) {
+        droppedCount.incrementAndGet();
+    }
+
+    @Override
+    protected void gaveUp(List<MatchRecord> matches) {
+        droppedCount.addAndGet(matches.size());
+    }
+
+    @Override
+    protected void overflowed(MatchRecord match) {
+        droppedCount.incrementAndGet();
+    }
+
+    @Override
+    protected void stopped(List<MatchRecord> matches) {
+        droppedCount.addAndGet(matches.size());
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,89 @@
+package persistence;
+
+/**
+ * The MatchRecord class represents one finished round in the match history: who played,
+ * who won, on which level, how long it lasted and how long each player's trail grew.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class MatchRecord {
+    private final long id;
+    private final long finishedAt;
+    private final int level;
+    private final String winner;
+    private final long durationMillis;
+    private final int ticks;
+    private final String[] playerNames;
+    private final int[] trailLengths;
+
+    /**
+     * @param id             the id the history gave the match, or 0 if it is not stored yet.
+     * @param finishedAt     when the match ended, in milliseconds since the epoch.
+     * @param level          the number of the level, starting at 1.
+     * @param winner         the name of the winner, or null for a draw.
+     * @param durationMillis how long the match lasted.
+     * @param ticks          the number of ticks played.
+     * @param playerNames    the names of the players, in the order they joined.
+     * @param trailLengths   the length of each player's trail in pixels, in the same order.
+     */
+    public MatchRecord(long id, long finishedAt, int level, String winner, long durationMillis, int ticks,
+            String[] playerNames, int[] trailLengths) {
+        if (playerNames.length != trailLengths.length) {
+            throw new IllegalArgumentException(playerNames.length + " players but " + trailLengths.length + " trails");
+        }
+        this.id = id;
+        this.finishedAt = finishedAt;
+        this.level = level;
+        this.winner = winner;
+        this.durationMillis = durationMillis;
+        this.ticks = ticks;
+        this.playerNames = playerNames.clone();
+        this.trailLengths = trailLengths.clone();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getPlayerCount() {
+        return playerNames.length;
+    }
+
+    public String getPlayerName(int slot) {
+        return playerNames[slot];
+    }
+
+    public int getTrailLength(int slot) {
+        return trailLengths[slot];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder players = new StringBuilder();
+        for (int i = 0; i < playerNames.length; i++) {
+            players.append(i == 0 ? "" : ", ").append(playerNames[i]).append(" (").append(trailLengths[i]).append(")");
+        }
+        return "Level " + level + ": " + (winner == null ? "draw" : winner + " won") + " after "
+                + durationMillis / 1000 + "s, " + ticks + " ticks - " + players;
+    }
+}
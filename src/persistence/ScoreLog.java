@@ -0,0 +1,230 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * The ScoreLog class represents an embedded score store: an append-only log file that is
+ * mapped into memory, with every player's total kept in an in-memory index. Storing a batch
+ * appends one frame to the mapped file and updates the index, so it takes microseconds and
+ * needs no server.
+ * <p>
+ * The file starts with a magic number, followed by one frame per stored batch:
+ * <pre>
+ * int payload length, int CRC32 of the payload,
+ * payload: int score count, then per score: short name length, UTF-8 name, int score
+ * </pre>
+ * The length is written last, so a frame cut short by a crash is not read back; the log is
+ * replayed up to the first frame that is empty or does not match its checksum. Frames are
+ * written to the mapping and left to the operating system to write back, so they survive the
+ * game crashing or being killed but not the machine going down before they are flushed.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ScoreLog implements ScoreStore {
+    public static final String DEFAULT_FILE = "../../scores.log";
+    private static final int MAGIC = 0x54524C47;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int MIN_MAPPED_SIZE = 1 << 20;
+    private static final Histogram WRITE_TIME = Metrics.timer("scorelog.write");
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, Integer> totals = new HashMap<>();
+    private final CRC32 checksum = new CRC32();
+    private MappedByteBuffer buffer;
+    private boolean closed;
+
+    private ScoreLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a score log, creating the file if it does not exist, and reads every score in it.
+     *
+     * @param path the log file.
+     * @return the opened log.
+     * @throws IOException if the file cannot be opened or is not a score log.
+     */
+    public static ScoreLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ScoreLog log = new ScoreLog(path, channel);
+        try {
+            log.replay();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return log;
+    }
+
+    /**
+     * Maps the file and rebuilds the index from its frames, leaving the buffer positioned
+     * where the next frame goes.
+     */
+    private void replay() throws IOException {
+        boolean empty = channel.size() == 0;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), MIN_MAPPED_SIZE));
+        if (empty) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a score log");
+        }
+        int position = Integer.BYTES;
+        while (position + FRAME_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + FRAME_HEADER_SIZE + length > buffer.capacity()
+                    || buffer.getInt(position + Integer.BYTES) != checksum(position + FRAME_HEADER_SIZE, length)) {
+                break;
+            }
+            readFrame(position + FRAME_HEADER_SIZE);
+            position += FRAME_HEADER_SIZE + length;
+        }
+        if (position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+            // A frame was cut short; clear the rest of the log so none of its bytes can be taken for a frame later.
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        buffer.position(position);
+    }
+
+    private void readFrame(int position) {
+        ByteBuffer frame = buffer.duplicate();
+        frame.position(position);
+        int count = frame.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[frame.getShort() & 0xFFFF];
+            frame.get(name);
+            totals.merge(new String(name, StandardCharsets.UTF_8), frame.getInt(), Integer::sum);
+        }
+    }
+
+    /**
+     * Appends a batch of scores as one frame. Scores of the same player are summed first.
+     *
+     * @param records the scores to store.
+     * @throws SQLException if the log is closed, a name is too long or the file cannot grow.
+     */
+    @Override
+    public synchronized void storeHighScores(List<ScoreRecord> records) throws SQLException {
+        if (closed) {
+            throw new SQLException("The score log is closed");
+        }
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        for (ScoreRecord record : records) {
+            batch.merge(record.getPlayerName(), record.getScore(), Integer::sum);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        byte[][] names = new byte[batch.size()][];
+        int length = Integer.BYTES;
+        int count = 0;
+        for (String playerName : batch.keySet()) {
+            byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new SQLDataException("Player name is too long for the score log: " + playerName);
+            }
+            names[count++] = name;
+            length += Short.BYTES + name.length + Integer.BYTES;
+        }
+        int position = buffer.position();
+        ensureCapacity(position + FRAME_HEADER_SIZE + length);
+
+        buffer.position(position + FRAME_HEADER_SIZE);
+        buffer.putInt(names.length);
+        int index = 0;
+        for (int score : batch.values()) {
+            buffer.putShort((short) names[index].length);
+            buffer.put(names[index]);
+            buffer.putInt(score);
+            index++;
+        }
+        buffer.putInt(position + Integer.BYTES, checksum(position + FRAME_HEADER_SIZE, length));
+        buffer.putInt(position, length);
+
+        batch.forEach((name, score) -> totals.merge(name, score, Integer::sum));
+        WRITE_TIME.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Maps a larger part of the file if the next frame does not fit, doubling the mapping.
+     */
+    private void ensureCapacity(int required) throws SQLException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long size = buffer.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new SQLException("The score log is full");
+        }
+        try {
+            int position = buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new SQLException("score log error: " + e.getMessage(), e);
+        }
+    }
+
+    private int checksum(int position, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(position);
+        payload.limit(position + length);
+        checksum.reset();
+        checksum.update(payload);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Returns every player's total from the index; the file is not read again.
+     *
+     * @return the scores keyed by player name.
+     * @throws SQLException if the log is closed.
+     */
+    @Override
+    public synchronized Map<String, Integer> loadScores() throws SQLException {
+        if (closed) {
+            throw new SQLException("The score log is closed");
+        }
+        return new HashMap<>(totals);
+    }
+
+    /**
+     * Writes the mapped frames back to the file and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("score log error: " + e.getMessage());
+        }
+    }
+}
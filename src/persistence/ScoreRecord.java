@@ -0,0 +1,24 @@
+package persistence;
+
+/**
+ * The ScoreRecord class represents a score waiting to be written to the leaderboard.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ScoreRecord {
+    private final String playerName;
+    private final int score;
+
+    public ScoreRecord(String playerName, int score) {
+        this.playerName = playerName;
+        this.score = score;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
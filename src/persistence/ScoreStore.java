@@ -0,0 +1,64 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ScoreStore interface represents where the leaderboard's scores are kept. The game
+ * only adds scores in batches and loads every player's total at startup, so any storage
+ * that can do both can back the leaderboard: the MySQL {@link Database}, or the embedded
+ * {@link ScoreLog} that needs no server at all.
+ *
+ * @author Isroilbek Jamolov
+ */
+public interface ScoreStore {
+
+    /**
+     * Adds a batch of scores to the players' totals; either every score is stored or none.
+     *
+     * @param records the scores to store.
+     * @throws SQLException if the scores cannot be stored.
+     */
+    void storeHighScores(List<ScoreRecord> records) throws SQLException;
+
+    /**
+     * Loads the total score of every player.
+     *
+     * @return the scores keyed by player name.
+     * @throws SQLException if the scores cannot be read.
+     */
+    Map<String, Integer> loadScores() throws SQLException;
+
+    /**
+     * Releases the connections or files held by the store.
+     */
+    void close();
+
+    /**
+     * Opens the store selected by the {@code tron.store} system property: {@code mysql} for
+     * the {@link Database}, {@code log} for a {@link ScoreLog} in the file named by the
+     * {@code tron.scoreLog} property. Without the property the database is used if it is
+     * configured, the score log otherwise, so the game starts without any external service.
+     *
+     * @return the store.
+     */
+    static ScoreStore open() {
+        String store = System.getProperty("tron.store",
+                Files.exists(Paths.get(Database.PROPERTIES_FILE)) ? "mysql" : "log");
+        if (store.equals("mysql")) {
+            return new Database();
+        }
+        Path file = Paths.get(System.getProperty("tron.scoreLog", ScoreLog.DEFAULT_FILE));
+        try {
+            return ScoreLog.open(file);
+        } catch (IOException e) {
+            System.out.println("score log error: " + e.getMessage());
+            return new Database();
+        }
+    }
+}
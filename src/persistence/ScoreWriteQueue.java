@@ -0,0 +1,277 @@
+package persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The ScoreWriteQueue class writes leaderboard scores in the background with a
+ * {@link BatchWriter}. A batch that cannot be written after the writer gives up is moved to a
+ * spool file, so the scores behind it are not held up. Scores that do not fit in the queue,
+ * or are still pending when the game exits, are spooled as well and loaded again once the
+ * queue is idle, so every score is written at least once.
+ * <p>
+ * A score the store refuses outright, such as a name too long for it, is set aside in a
+ * rejected file next to the spool file, together with spooled lines that cannot be read.
+ * <p>
+ * A listener can be told about every batch once it is written. A score spooled during a run
+ * comes back from the spool file as the same {@link ScoreRecord}, so the listener can follow
+ * a score through the spool.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ScoreWriteQueue extends BatchWriter<ScoreRecord> {
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final ScoreStore store;
+    private final Path spoolFile;
+    private final Path rejectedFile;
+    private final Object spoolLock = new Object();
+    private final Map<String, Deque<ScoreRecord>> spooledRecords = new HashMap<>();
+    private final Object writeLock = new Object();
+    private volatile Consumer<List<ScoreRecord>> writeListener = records -> { };
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param store the shared store the scores are written to.
+     * @param capacity the maximum number of scores held in memory.
+     * @param spoolFile the file pending scores are kept in while they cannot be written.
+     */
+    public ScoreWriteQueue(ScoreStore store, int capacity, Path spoolFile) {
+        super("score-writer", capacity, MAX_BATCH_SIZE);
+        this.store = store;
+        this.spoolFile = spoolFile;
+        this.rejectedFile = spoolFile.resolveSibling(spoolFile.getFileName() + ".rejected");
+    }
+
+    /**
+     * Arranges for pending scores to be spooled on exit.
+     */
+    @Override
+    protected void started() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "score-writer-shutdown"));
+    }
+
+    /**
+     * Sets the listener told about every batch of scores once it is written to the store.
+     * The listener runs on the worker thread, while {@link #runBetweenWrites} tasks are held off.
+     *
+     * @param writeListener receives the scores that were written.
+     */
+    public void setWriteListener(Consumer<List<ScoreRecord>> writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Runs a task while no batch is being written, so every score is either already in the
+     * store when the task reads it or is reported to the write listener after the task is done.
+     *
+     * @param task the task, usually reading the store.
+     * @throws SQLException if the task fails.
+     */
+    public void runBetweenWrites(StoreTask task) throws SQLException {
+        synchronized (writeLock) {
+            task.run();
+        }
+    }
+
+    /**
+     * Queues a score to be added to a player's leaderboard entry.
+     * This never blocks; if the queue is full the score goes to the spool file.
+     *
+     * @param playerName the name of the player.
+     * @param score the score to add.
+     */
+    public void submit(String playerName, int score) {
+        submit(new ScoreRecord(playerName, score));
+    }
+
+    @Override
+    protected void store(List<ScoreRecord> records) throws SQLException {
+        synchronized (writeLock) {
+            store.storeHighScores(records);
+            writeListener.accept(records);
+        }
+    }
+
+    @Override
+    protected void refused(ScoreRecord record) {
+        reject(List.of(format(record)));
+    }
+
+    @Override
+    protected void gaveUp(List<ScoreRecord> records) {
+        spool(records);
+    }
+
+    @Override
+    protected void overflowed(ScoreRecord record) {
+        spool(List.of(record));
+    }
+
+    @Override
+    protected void stopped(List<ScoreRecord> records) {
+        spool(records);
+    }
+
+    @Override
+    protected void idle() {
+        loadSpool();
+    }
+
+    /**
+     * Appends scores to the spool file.
+     *
+     * @param records the scores to keep.
+     */
+    private void spool(List<ScoreRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        synchronized (spoolLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spoolFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (ScoreRecord record : records) {
+                    writer.write(format(record));
+                    writer.newLine();
+                    spooledRecords.computeIfAbsent(format(record), line -> new ArrayDeque<>()).add(record);
+                }
+            } catch (IOException e) {
+                System.out.println("score spool error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Moves spooled scores back onto the queue once it is idle. The whole file is read
+     * first and the scores that do not fit in the queue are written back before any score
+     * is queued, so a score is never both queued and left in the spool file. Lines that
+     * cannot be read are moved to the rejected file.
+     */
+    private void loadSpool() {
+        synchronized (spoolLock) {
+            if (!Files.exists(spoolFile)) {
+                return;
+            }
+            List<ScoreRecord> records = new ArrayList<>();
+            List<String> unreadable = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(spoolFile, StandardCharsets.UTF_8)) {
+                    ScoreRecord record = unspool(line);
+                    if (record != null) {
+                        records.add(record);
+                    } else if (!line.isBlank()) {
+                        unreadable.add(line);
+                    }
+                }
+                List<ScoreRecord> loading = records.subList(0, Math.min(records.size(), getRemainingCapacity()));
+                List<ScoreRecord> remaining = records.subList(loading.size(), records.size());
+                if (remaining.isEmpty()) {
+                    Files.delete(spoolFile);
+                } else {
+                    List<String> lines = new ArrayList<>();
+                    for (ScoreRecord record : remaining) {
+                        lines.add(format(record));
+                        spooledRecords.computeIfAbsent(format(record), line -> new ArrayDeque<>()).add(record);
+                    }
+                    Path rewritten = spoolFile.resolveSibling(spoolFile.getFileName() + ".tmp");
+                    Files.write(rewritten, lines, StandardCharsets.UTF_8);
+                    Files.move(rewritten, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                reject(unreadable);
+                for (ScoreRecord record : loading) {
+                    if (!requeue(record)) {
+                        spool(List.of(record));
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("score spool error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Appends lines to the rejected file, where they are kept for someone to look at.
+     *
+     * @param lines the spool lines that will not be loaded again.
+     */
+    private void reject(List<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        rejectedCount.addAndGet(lines.size());
+        synchronized (spoolLock) {
+            try {
+                Files.write(rejectedFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                System.out.println("score rejected: " + lines.size() + " moved to " + rejectedFile);
+            } catch (IOException e) {
+                System.out.println("score spool error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String format(ScoreRecord record) {
+        return record.getScore() + "\t" + record.getPlayerName();
+    }
+
+    /**
+     * @return the score spooled during this run as the line, or else the score on the line.
+     */
+    private ScoreRecord unspool(String line) {
+        Deque<ScoreRecord> spooled = spooledRecords.get(line);
+        if (spooled == null) {
+            return parse(line);
+        }
+        ScoreRecord record = spooled.poll();
+        if (spooled.isEmpty()) {
+            spooledRecords.remove(line);
+        }
+        return record;
+    }
+
+    /**
+     * @return the score on a spool line, or null if the line cannot be read.
+     */
+    private static ScoreRecord parse(String line) {
+        int tab = line.indexOf('\t');
+        if (tab < 0) {
+            return null;
+        }
+        try {
+            return new ScoreRecord(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of scores and spool lines moved to the rejected file.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * The StoreTask interface represents work on the store that may fail.
+     */
+    public interface StoreTask {
+        void run() throws SQLException;
+    }
+}
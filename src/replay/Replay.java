@@ -0,0 +1,352 @@
+package replay;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.GameSnapshot;
+import model.Motorcycle;
+
+/**
+ * The Replay class represents a recorded round read from a replay file.
+ * <p>
+ * The file starts with a header holding the level, its speed, arena size and rules, the
+ * keyframe interval and the name, color, spawn and start direction of every player. It is
+ * followed by records, each starting with a tag byte and the number of ticks since the
+ * previous record: a turn (tagged with the new direction) with the index of the player,
+ * a keyframe with the state of every motorcycle, or the end of the round with the winner.
+ * Numbers are stored as variable length integers. A replay whose recording was cut short
+ * has no end record and ends after its last turn.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class Replay {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 300;
+
+    static final int MAGIC = 0x54524E52;
+    static final byte VERSION = 1;
+    static final byte KEYFRAME = 4;
+    static final byte END = 5;
+    static final int ALLOW_TRAIL_TOUCH = 1;
+    static final int SWEPT_COLLISION = 2;
+    static final int ELIMINATED = 1;
+    static final int CROSSED_OWN_TRAIL = 2;
+
+    private static final Motorcycle.Direction[] DIRECTIONS = Motorcycle.Direction.values();
+
+    private int levelIndex;
+    private int speed;
+    private int width;
+    private int height;
+    private boolean allowTrailTouch;
+    private boolean sweptCollision;
+    private int keyframeInterval;
+    private String[] names;
+    private Color[] colors;
+    private Point[] spawns;
+    private Motorcycle.Direction[] startDirections;
+    private int[] turnTicks = new int[64];
+    private int[] turnPlayers = new int[64];
+    private byte[] turnDirections = new byte[64];
+    private int turnCount;
+    private final List<GameSnapshot> keyframes = new ArrayList<>();
+    private int endTick;
+    private int winnerSlot = -1;
+    private boolean complete;
+
+    private Replay() {
+    }
+
+    /**
+     * Reads a replay file.
+     *
+     * @param path the file to read.
+     * @return the replay.
+     * @throws IOException if the file cannot be read, is not a replay or is corrupt.
+     */
+    public static Replay read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        Replay replay = new Replay();
+        try {
+            replay.readHeader(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Replay header is truncated: " + path, e);
+        }
+        try {
+            replay.readRecords(buffer);
+        } catch (BufferUnderflowException e) {
+            System.out.println("Replay was cut short after tick " + replay.endTick + ": " + path);
+        }
+        return replay;
+    }
+
+    private void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        levelIndex = getVarint(buffer);
+        speed = getVarint(buffer);
+        width = getVarint(buffer);
+        height = getVarint(buffer);
+        int flags = buffer.get();
+        allowTrailTouch = (flags & ALLOW_TRAIL_TOUCH) != 0;
+        sweptCollision = (flags & SWEPT_COLLISION) != 0;
+        keyframeInterval = getVarint(buffer);
+
+        // A player takes at least a name length, a color, a spawn and a direction.
+        int playerCount = getCount(buffer, 8);
+        names = new String[playerCount];
+        colors = new Color[playerCount];
+        spawns = new Point[playerCount];
+        startDirections = new Motorcycle.Direction[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            byte[] name = new byte[getCount(buffer, 1)];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            colors[i] = new Color(buffer.getInt(), true);
+            spawns[i] = new Point(getSignedVarint(buffer), getSignedVarint(buffer));
+            startDirections[i] = getDirection(buffer);
+        }
+    }
+
+    private void readRecords(ByteBuffer buffer) throws IOException {
+        int tick = 0;
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            tick += getCount(buffer, 0);
+            if (tag == END) {
+                endTick = tick;
+                winnerSlot = getVarint(buffer) - 1;
+                if (winnerSlot < -1 || winnerSlot >= names.length) {
+                    throw new IOException("Replay names winner " + (winnerSlot + 1) + " of " + names.length + " players");
+                }
+                complete = true;
+                return;
+            } else if (tag == KEYFRAME) {
+                keyframes.add(readKeyframe(buffer, tick));
+            } else if (tag >= 0 && tag < DIRECTIONS.length) {
+                int player = getVarint(buffer);
+                if (player < 0 || player >= names.length) {
+                    throw new IOException("Replay turn of player " + player + " of " + names.length + " players");
+                }
+                addTurn(tick, player, tag);
+            } else {
+                throw new IOException("Unknown replay record " + tag + " after tick " + tick);
+            }
+            endTick = tick;
+        }
+    }
+
+    private GameSnapshot readKeyframe(ByteBuffer buffer, int tick) throws IOException {
+        int playerCount = names.length;
+        int[] positions = new int[playerCount * 4];
+        Motorcycle.Direction[] directions = new Motorcycle.Direction[playerCount];
+        boolean[] eliminated = new boolean[playerCount];
+        boolean[] crossedOwnTrail = new boolean[playerCount];
+        int[][] trails = new int[playerCount][];
+        for (int i = 0; i < playerCount; i++) {
+            int flags = buffer.get();
+            eliminated[i] = (flags & ELIMINATED) != 0;
+            crossedOwnTrail[i] = (flags & CROSSED_OWN_TRAIL) != 0;
+            directions[i] = getDirection(buffer);
+            for (int j = 0; j < 4; j++) {
+                positions[i * 4 + j] = getSignedVarint(buffer);
+            }
+            trails[i] = new int[getCount(buffer, 1)];
+            for (int j = 0; j < trails[i].length; j++) {
+                trails[i][j] = getSignedVarint(buffer);
+            }
+        }
+        return new GameSnapshot(tick, positions, directions, eliminated, crossedOwnTrail, trails);
+    }
+
+    private void addTurn(int tick, int player, byte direction) {
+        if (turnCount == turnTicks.length) {
+            turnTicks = Arrays.copyOf(turnTicks, turnCount * 2);
+            turnPlayers = Arrays.copyOf(turnPlayers, turnCount * 2);
+            turnDirections = Arrays.copyOf(turnDirections, turnCount * 2);
+        }
+        turnTicks[turnCount] = tick;
+        turnPlayers[turnCount] = player;
+        turnDirections[turnCount] = direction;
+        turnCount++;
+    }
+
+    /**
+     * Looks up the turn a player made in a tick.
+     *
+     * @param player the index of the player.
+     * @param tick the tick.
+     * @return the new direction, or null if the player did not turn in that tick.
+     */
+    public Motorcycle.Direction getTurn(int player, int tick) {
+        int index = Arrays.binarySearch(turnTicks, 0, turnCount, tick);
+        if (index < 0) {
+            return null;
+        }
+        while (index > 0 && turnTicks[index - 1] == tick) {
+            index--;
+        }
+        for (; index < turnCount && turnTicks[index] == tick; index++) {
+            if (turnPlayers[index] == player) {
+                return DIRECTIONS[turnDirections[index]];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the latest keyframe at or before a tick.
+     *
+     * @param tick the tick.
+     * @return the keyframe, or null if there is none that early.
+     */
+    public GameSnapshot getKeyframeBefore(int tick) {
+        int low = 0;
+        int high = keyframes.size() - 1;
+        GameSnapshot found = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            GameSnapshot keyframe = keyframes.get(middle);
+            if (keyframe.getTick() <= tick) {
+                found = keyframe;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isAllowTrailTouch() {
+        return allowTrailTouch;
+    }
+
+    public boolean isSweptCollision() {
+        return sweptCollision;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    public int getPlayerCount() {
+        return names.length;
+    }
+
+    public String getName(int player) {
+        return names[player];
+    }
+
+    public Color getColor(int player) {
+        return colors[player];
+    }
+
+    public Point getSpawn(int player) {
+        return new Point(spawns[player]);
+    }
+
+    public Motorcycle.Direction getStartDirection(int player) {
+        return startDirections[player];
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return the last tick of the round.
+     */
+    public int getEndTick() {
+        return endTick;
+    }
+
+    /**
+     * @return the index of the winning player, or -1 for a draw or a replay that was cut short.
+     */
+    public int getWinnerSlot() {
+        return winnerSlot;
+    }
+
+    /**
+     * @return true if the replay was recorded until the end of the round.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Reads a count, checking it against what is left of the file, so a corrupt count cannot
+     * allocate more than the file could hold.
+     *
+     * @param bytesPerItem the fewest bytes each counted item takes in the file.
+     * @throws BufferUnderflowException if the file ends before the counted items.
+     * @throws IOException if the count is negative.
+     */
+    private static int getCount(ByteBuffer buffer, int bytesPerItem) throws IOException {
+        int count = getVarint(buffer);
+        if (count < 0) {
+            throw new IOException("Replay has a negative count " + count);
+        }
+        if ((long) count * bytesPerItem > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static Motorcycle.Direction getDirection(ByteBuffer buffer) throws IOException {
+        int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= DIRECTIONS.length) {
+            throw new IOException("Replay has an unknown direction " + ordinal);
+        }
+        return DIRECTIONS[ordinal];
+    }
+
+    private static int getSignedVarint(ByteBuffer buffer) {
+        int value = getVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,153 @@
+package replay;
+
+import java.nio.file.Paths;
+import model.Game;
+import model.GameSnapshot;
+import model.Motorcycle;
+import model.Player;
+import model.PlayerController;
+
+/**
+ * The ReplayPlayer class plays a replay back through the simulation.
+ * Seeking restores the latest keyframe before the target tick and simulates only the
+ * ticks after it, so any tick of a long replay is reached in at most one keyframe interval.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ReplayPlayer {
+    private final Replay replay;
+    private final Game game;
+    private final GameSnapshot start;
+
+    /**
+     * Sets up a game in the state the replay starts in.
+     *
+     * @param replay the replay to play.
+     * @throws IllegalArgumentException if the replay's level no longer has the recorded arena size.
+     */
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        game = new Game();
+        for (int i = 0; i < replay.getPlayerCount(); i++) {
+            Player player = new Player(replay.getName(i), replay.getColor(i), replay.getSpawn(i),
+                    replay.getStartDirection(i));
+            player.setController(new ReplayController(i));
+            game.addPlayer(player);
+        }
+        game.setSweptCollision(replay.isSweptCollision());
+        game.selectLevel(replay.getLevelIndex());
+        if (game.getMaxWidth() != replay.getWidth() || game.getMaxHeight() != replay.getHeight()) {
+            throw new IllegalArgumentException("Replay was recorded on a " + replay.getWidth() + "x"
+                    + replay.getHeight() + " arena, level " + (replay.getLevelIndex() + 1) + " is "
+                    + game.getMaxWidth() + "x" + game.getMaxHeight());
+        }
+        for (int i = 0; i < replay.getPlayerCount(); i++) {
+            Motorcycle motorcycle = game.getPlayers().get(i).getMotorcycle();
+            motorcycle.setSpeed(replay.getSpeed());
+            motorcycle.setAllowTrailTouch(replay.isAllowTrailTouch());
+            motorcycle.setStartPosition(replay.getSpawn(i));
+            motorcycle.setStartDirection(replay.getStartDirection(i));
+            game.getPlayers().get(i).reset();
+        }
+        start = game.snapshot();
+    }
+
+    /**
+     * Plays the next tick of the replay.
+     *
+     * @return false if the replay has ended.
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        game.update();
+        return true;
+    }
+
+    /**
+     * Moves the replay to a tick.
+     *
+     * @param tick the tick to go to, clamped to the length of the replay.
+     */
+    public void seek(int tick) {
+        int target = Math.max(0, Math.min(tick, replay.getEndTick()));
+        GameSnapshot keyframe = replay.getKeyframeBefore(target);
+        if (keyframe == null) {
+            keyframe = start;
+        }
+        if (target < game.getTick() || game.isGameOver() || keyframe.getTick() > game.getTick()) {
+            game.restore(keyframe);
+        }
+        while (game.getTick() < target && !game.isGameOver()) {
+            game.update();
+        }
+    }
+
+    /**
+     * @return true if every tick of the replay has been played.
+     */
+    public boolean isFinished() {
+        return game.isGameOver() || game.getTick() >= replay.getEndTick();
+    }
+
+    /**
+     * @return the game the replay is played in.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Steers a player with the turns recorded in the replay.
+     */
+    private final class ReplayController implements PlayerController {
+        private final int playerIndex;
+
+        ReplayController(int playerIndex) {
+            this.playerIndex = playerIndex;
+        }
+
+        @Override
+        public Motorcycle.Direction chooseDirection(Game game, Player player) {
+            return replay.getTurn(playerIndex, game.getTick());
+        }
+    }
+
+    /**
+     * Entry point for checking a replay file: plays it to the end, or seeks to the given tick,
+     * and prints where every motorcycle is.
+     *
+     * @param args the replay file and optionally a tick.
+     * @throws Exception if the replay cannot be read.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: java replay.ReplayPlayer <file.replay> [tick]");
+            return;
+        }
+        Replay replay = Replay.read(Paths.get(args[0]));
+        ReplayPlayer player = new ReplayPlayer(replay);
+        int tick = args.length > 1 ? Integer.parseInt(args[1]) : replay.getEndTick();
+        long seekStart = System.nanoTime();
+        player.seek(tick);
+        double seekMillis = (System.nanoTime() - seekStart) / 1e6;
+
+        Game game = player.getGame();
+        System.out.printf("level %d, %d players, %d turns, %d keyframes, %d ticks%n", replay.getLevelIndex() + 1,
+                replay.getPlayerCount(), replay.getTurnCount(), replay.getKeyframeCount(), replay.getEndTick());
+        System.out.printf("tick %d reached in %.2fms%n", game.getTick(), seekMillis);
+        for (Player p : game.getPlayers()) {
+            Motorcycle motorcycle = p.getMotorcycle();
+            System.out.printf("  %s at %d,%d heading %s%s%n", p.getName(), motorcycle.getPosition().x,
+                    motorcycle.getPosition().y, motorcycle.getDirection(), p.isEliminated() ? " (eliminated)" : "");
+        }
+        if (game.isGameOver()) {
+            System.out.println(game.getWinner() == null ? "Draw" : game.getWinner().getName() + " wins");
+        }
+    }
+}
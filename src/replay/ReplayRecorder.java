@@ -0,0 +1,210 @@
+package replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import model.Game;
+import model.GameSnapshot;
+import model.InputLog;
+import model.Level;
+import model.Motorcycle;
+import model.Player;
+import model.TickListener;
+
+/**
+ * The ReplayRecorder class records every round of a game into its own replay file.
+ * A replay holds the level, the players and their spawns, the turns applied in each tick
+ * and a keyframe of the whole round every {@link Replay#DEFAULT_KEYFRAME_INTERVAL} ticks.
+ * <p>
+ * Records are collected in a direct buffer and written to the file channel only when it
+ * fills up, so recording costs a few bytes of buffer writes per turn.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class ReplayRecorder implements TickListener {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int keyframeInterval;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private int roundCount;
+    private int loggedTurns;
+    private int lastTick;
+
+    /**
+     * @param directory the directory the replay files are written to.
+     */
+    public ReplayRecorder(Path directory) {
+        this(directory, Replay.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * @param directory the directory the replay files are written to.
+     * @param keyframeInterval the number of ticks between two keyframes.
+     */
+    public ReplayRecorder(Path directory, int keyframeInterval) {
+        this.directory = directory;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    @Override
+    public void tickFinished(Game game) {
+        try {
+            if (game.getTick() == 1) {
+                startRound(game);
+            }
+            if (channel == null) {
+                return;
+            }
+            writeTurns(game.getInputLog());
+            if (game.isGameOver()) {
+                endRound(game);
+            } else if (game.getTick() % keyframeInterval == 0) {
+                writeKeyframe(game.snapshot());
+            }
+        } catch (IOException e) {
+            System.out.println("replay error: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Closes the replay of the current round, leaving it without an end record.
+     */
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("replay close error: " + e.getMessage());
+        }
+        channel = null;
+        buffer.clear();
+    }
+
+    /**
+     * Opens a new replay file and writes the header of the round.
+     */
+    private void startRound(Game game) throws IOException {
+        close();
+        roundCount++;
+        Path file = directory.resolve("round-" + System.currentTimeMillis() + "-" + roundCount + ".replay");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        loggedTurns = 0;
+        lastTick = 0;
+
+        Level level = game.getCurrentLevel();
+        ensure(32);
+        buffer.putInt(Replay.MAGIC);
+        buffer.put(Replay.VERSION);
+        putVarint(game.getCurrentLevelIndex());
+        putVarint(level.getSpeed());
+        putVarint(level.getWidth());
+        putVarint(level.getHeight());
+        buffer.put((byte) ((level.isAllowTrailTouch() ? Replay.ALLOW_TRAIL_TOUCH : 0)
+                | (game.isSweptCollision() ? Replay.SWEPT_COLLISION : 0)));
+        putVarint(keyframeInterval);
+
+        List<Player> players = game.getPlayers();
+        putVarint(players.size());
+        for (Player player : players) {
+            Motorcycle motorcycle = player.getMotorcycle();
+            byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+            ensure(32 + name.length);
+            putVarint(name.length);
+            buffer.put(name);
+            buffer.putInt(motorcycle.getTrailColor().getRGB());
+            putSignedVarint(motorcycle.getStartX());
+            putSignedVarint(motorcycle.getStartY());
+            buffer.put((byte) motorcycle.getStartDirection().ordinal());
+        }
+    }
+
+    /**
+     * Writes the turns logged since the last tick.
+     */
+    private void writeTurns(InputLog log) throws IOException {
+        for (; loggedTurns < log.getTurnCount(); loggedTurns++) {
+            ensure(16);
+            buffer.put((byte) log.getDirection(loggedTurns).ordinal());
+            putTick(log.getTick(loggedTurns));
+            putVarint(log.getPlayerIndex(loggedTurns));
+        }
+    }
+
+    private void writeKeyframe(GameSnapshot snapshot) throws IOException {
+        ensure(16);
+        buffer.put(Replay.KEYFRAME);
+        putTick(snapshot.getTick());
+        for (int i = 0; i < snapshot.getPlayerCount(); i++) {
+            int[] trail = snapshot.getTrail(i);
+            ensure(32);
+            buffer.put((byte) ((snapshot.isEliminated(i) ? Replay.ELIMINATED : 0)
+                    | (snapshot.hasCrossedOwnTrail(i) ? Replay.CROSSED_OWN_TRAIL : 0)));
+            buffer.put((byte) snapshot.getDirection(i).ordinal());
+            putSignedVarint(snapshot.getX(i));
+            putSignedVarint(snapshot.getY(i));
+            putSignedVarint(snapshot.getPreviousX(i));
+            putSignedVarint(snapshot.getPreviousY(i));
+            putVarint(trail.length);
+            for (int coordinate : trail) {
+                ensure(5);
+                putSignedVarint(coordinate);
+            }
+        }
+    }
+
+    private void endRound(Game game) throws IOException {
+        ensure(16);
+        buffer.put(Replay.END);
+        putTick(game.getTick());
+        putVarint(game.getPlayers().indexOf(game.getWinner()) + 1);
+        close();
+    }
+
+    /**
+     * Writes a tick as the number of ticks since the previous record.
+     */
+    private void putTick(int tick) {
+        putVarint(tick - lastTick);
+        lastTick = tick;
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void putSignedVarint(int value) {
+        putVarint((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Makes room for the given number of bytes, writing the buffer out if needed.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,301 @@
+package simulation;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.Game;
+import model.LevelCatalogue;
+import model.Motorcycle;
+import model.Player;
+import model.SearchBot;
+import model.SimpleBot;
+
+/**
+ * The BatchRunner class plays many independent bot matches in parallel without a display.
+ * Every match result is streamed to a CSV or JSON report as soon as it finishes, and a
+ * summary of win rates, round lengths and simulation speed per level is printed at the end.
+ * A match cut off by {@code --max-ticks} is reported as a timeout, not as a draw.
+ * <p>
+ * Options: {@code --matches=N --levels=1,2,... --threads=N --seed=N --max-ticks=N
+ * --turn-chance=P --players=N --search-bots=N --search-budget-micros=N --report=results.csv|results.json}.
+ * Without {@code --levels} every level of the catalogue is played. The first {@code --search-bots}
+ * players are {@link SearchBot}s, the others {@link SimpleBot}s.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class BatchRunner {
+    private final int matches;
+    private final int[] levels;
+    private final int threads;
+    private final long seed;
+    private final int maxTicks;
+    private final double turnChance;
+    private final int playerCount;
+    private final int searchBots;
+    private final long searchBudgetNanos;
+
+    public BatchRunner(int matches, int[] levels, int threads, long seed, int maxTicks, double turnChance,
+            int playerCount, int searchBots, long searchBudgetNanos) {
+        this.matches = matches;
+        this.levels = levels;
+        this.threads = threads;
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+        this.turnChance = turnChance;
+        this.playerCount = playerCount;
+        this.searchBots = searchBots;
+        this.searchBudgetNanos = searchBudgetNanos;
+    }
+
+    /**
+     * Plays every match of the batch and writes each result to the report.
+     *
+     * @param report the writer the results are streamed to.
+     * @return the summary of each level, keyed by level index.
+     * @throws IOException if the report cannot be written.
+     * @throws InterruptedException if the batch is interrupted.
+     */
+    public Map<Integer, LevelSummary> run(ReportWriter report) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<Integer, LevelSummary> summaries = new HashMap<>();
+        try {
+            CompletionService<MatchResult> completion = new ExecutorCompletionService<>(executor);
+            int total = matches * levels.length;
+            for (int i = 0; i < total; i++) {
+                int match = i;
+                int level = levels[i % levels.length];
+                completion.submit(() -> play(match, level, seed + match));
+            }
+            for (int i = 0; i < total; i++) {
+                MatchResult result = completion.take().get();
+                report.write(result);
+                summaries.computeIfAbsent(result.getLevel(), key -> new LevelSummary(key, playerCount)).add(result);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Match failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return summaries;
+    }
+
+    /**
+     * Plays a single match between bots.
+     *
+     * @param match the index of the match.
+     * @param level the index of the level to play.
+     * @param matchSeed the seed of the bots.
+     * @return the result of the match.
+     */
+    public MatchResult play(int match, int level, long matchSeed) {
+        Game game = new Game();
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player("bot" + (i + 1), Color.getHSBColor((float) i / playerCount, 0.8f, 1f),
+                    new Point(0, 0), Motorcycle.Direction.RIGHT);
+            if (i < searchBots) {
+                player.setController(new SearchBot(searchBudgetNanos, false));
+            } else {
+                player.setController(new SimpleBot(matchSeed * 31 + i, turnChance));
+            }
+            game.addPlayer(player);
+        }
+        game.selectLevel(level);
+
+        long start = System.nanoTime();
+        int ticks = 0;
+        while (!game.isGameOver() && ticks < maxTicks) {
+            game.update();
+            ticks++;
+        }
+        long nanos = System.nanoTime() - start;
+        int winnerSlot = game.isGameOver() ? game.getPlayers().indexOf(game.getWinner()) : -1;
+        return new MatchResult(match, level, matchSeed, winnerSlot, !game.isGameOver(), ticks, nanos);
+    }
+
+    /**
+     * The LevelSummary class aggregates the results of one level.
+     */
+    public static class LevelSummary {
+        private final int level;
+        private final int[] wins;
+        private int matchCount;
+        private int draws;
+        private int timeouts;
+        private long ticks;
+        private long nanos;
+
+        LevelSummary(int level, int playerCount) {
+            this.level = level;
+            this.wins = new int[playerCount];
+        }
+
+        void add(MatchResult result) {
+            matchCount++;
+            if (result.isTimedOut()) {
+                timeouts++;
+            } else if (result.isDraw()) {
+                draws++;
+            } else {
+                wins[result.getWinnerSlot()]++;
+            }
+            ticks += result.getTicks();
+            nanos += result.getNanos();
+        }
+
+        public double getWinRate(int slot) {
+            return (double) wins[slot] / matchCount;
+        }
+
+        public double getDrawRate() {
+            return (double) draws / matchCount;
+        }
+
+        /**
+         * @return the share of matches cut off by the tick limit, which count as neither a win nor a draw.
+         */
+        public double getTimeoutRate() {
+            return (double) timeouts / matchCount;
+        }
+
+        public double getAverageTicks() {
+            return (double) ticks / matchCount;
+        }
+
+        /**
+         * @return the simulation speed of a single thread, in ticks per second.
+         */
+        public double getTicksPerSecond() {
+            return nanos == 0 ? 0 : ticks * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder winRates = new StringBuilder();
+            for (int slot = 0; slot < wins.length; slot++) {
+                winRates.append(String.format("P%d %.1f%%, ", slot + 1, getWinRate(slot) * 100));
+            }
+            return String.format("level %2d: %5d matches, %sdraws %.1f%%, timeouts %.1f%%, %.0f ticks/round, %.0f ticks/s",
+                    level + 1, matchCount, winRates, getDrawRate() * 100, getTimeoutRate() * 100, getAverageTicks(),
+                    getTicksPerSecond());
+        }
+    }
+
+    /**
+     * The ReportWriter class streams match results as CSV, or as a JSON array when the
+     * report file name ends with ".json".
+     */
+    public static class ReportWriter implements AutoCloseable {
+        private final BufferedWriter writer;
+        private final boolean json;
+        private boolean first = true;
+
+        public ReportWriter(Path path) throws IOException {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            json = path.toString().endsWith(".json");
+            if (json) {
+                writer.write("[");
+            } else {
+                writer.write("match,level,seed,winner,timed_out,ticks,nanos");
+            }
+            writer.newLine();
+        }
+
+        void write(MatchResult result) throws IOException {
+            if (json) {
+                writer.write((first ? "" : ",\n") + String.format(
+                        "{\"match\":%d,\"level\":%d,\"seed\":%d,\"winner\":%d,\"timedOut\":%b,\"ticks\":%d,\"nanos\":%d}",
+                        result.getMatch(), result.getLevel() + 1, result.getSeed(), result.getWinnerSlot() + 1,
+                        result.isTimedOut(), result.getTicks(), result.getNanos()));
+            } else {
+                writer.write(result.getMatch() + "," + (result.getLevel() + 1) + "," + result.getSeed() + ","
+                        + (result.getWinnerSlot() + 1) + "," + result.isTimedOut() + "," + result.getTicks() + ","
+                        + result.getNanos());
+                writer.newLine();
+            }
+            first = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (json) {
+                writer.newLine();
+                writer.write("]");
+                writer.newLine();
+            }
+            writer.close();
+        }
+    }
+
+    /**
+     * Entry point for running a batch of matches.
+     *
+     * @param args the batch options.
+     * @throws Exception if the batch fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        int levelCount = LevelCatalogue.getDefault().size();
+        List<Integer> levelList = new ArrayList<>();
+        if (options.containsKey("levels")) {
+            for (String level : options.get("levels").split(",")) {
+                int number = Integer.parseInt(level.trim());
+                if (number < 1 || number > levelCount) {
+                    System.out.println("Unknown level " + number + ", the catalogue has levels 1 to " + levelCount);
+                    return;
+                }
+                levelList.add(number - 1);
+            }
+        } else {
+            for (int level = 0; level < levelCount; level++) {
+                levelList.add(level);
+            }
+        }
+        int[] levels = levelList.stream().mapToInt(Integer::intValue).toArray();
+
+        BatchRunner runner = new BatchRunner(
+                Integer.parseInt(options.getOrDefault("matches", "1000")),
+                levels,
+                Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                Integer.parseInt(options.getOrDefault("max-ticks", "100000")),
+                Double.parseDouble(options.getOrDefault("turn-chance", "0.02")),
+                Integer.parseInt(options.getOrDefault("players", "2")),
+                Integer.parseInt(options.getOrDefault("search-bots", "0")),
+                Long.parseLong(options.getOrDefault("search-budget-micros", "2000")) * 1000L);
+
+        long start = System.nanoTime();
+        Map<Integer, LevelSummary> summaries;
+        try (ReportWriter report = new ReportWriter(Paths.get(options.getOrDefault("report", "results.csv")))) {
+            summaries = runner.run(report);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalTicks = 0;
+        for (int level : levels) {
+            LevelSummary summary = summaries.get(level);
+            System.out.println(summary);
+            totalTicks += summary.ticks;
+        }
+        System.out.printf("%d ticks in %.2fs, %.0f ticks/s across all threads%n", totalTicks, seconds, totalTicks / seconds);
+    }
+}
@@ -0,0 +1,71 @@
+package simulation;
+
+/**
+ * The MatchResult class represents the outcome of one simulated match.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class MatchResult {
+    private final int match;
+    private final int level;
+    private final long seed;
+    private final int winnerSlot;
+    private final boolean timedOut;
+    private final int ticks;
+    private final long nanos;
+
+    /**
+     * @param match the index of the match in the batch.
+     * @param level the index of the level played.
+     * @param seed the seed of the bots.
+     * @param winnerSlot the index of the winning player, or -1 for a draw or a timeout.
+     * @param timedOut true if the round was cut off before it ended.
+     * @param ticks the number of ticks the round lasted.
+     * @param nanos the time it took to simulate the round.
+     */
+    public MatchResult(int match, int level, long seed, int winnerSlot, boolean timedOut, int ticks,
+            long nanos) {
+        this.match = match;
+        this.level = level;
+        this.seed = seed;
+        this.winnerSlot = winnerSlot;
+        this.timedOut = timedOut;
+        this.ticks = ticks;
+        this.nanos = nanos;
+    }
+
+    public int getMatch() {
+        return match;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getWinnerSlot() {
+        return winnerSlot;
+    }
+
+    public boolean isDraw() {
+        return winnerSlot < 0 && !timedOut;
+    }
+
+    /**
+     * @return true if the round was cut off by the tick limit, so it has neither a winner nor a draw.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -1,80 +1,174 @@
 package view;
 
+import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
-import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.List;
 import javax.swing.JPanel;
+import metrics.Histogram;
+import metrics.Metrics;
 import model.Game;
 import model.Level;
-import model.Motorcycle;
-import model.Player;
-import model.Trail;
+import model.RenderState;
 
 /**
  * The Board class represents the game board where the game is displayed.
  * It updates and renders the game components.
- * 
+ * <p>
+ * Trails are drawn incrementally into a {@link TrailBuffer}: every frame only the cells added
+ * since the previous frame are drawn, and only the rectangles around them and around the
+ * motorcycles are repainted.
+ * <p>
+ * The board draws the {@link RenderState} the game publishes after every tick rather than
+ * the game itself, so it never waits for the game's lock and never copies a trail.
+ * <p>
+ * The debug overlay lists the current {@link Metrics} in the top left corner of the board.
+ *
  * @author Isroilbek Jamolov
  */
-public class Board extends JPanel {
+public class Board extends JPanel implements GameView {
+    private static final Histogram PAINT_TIME = Metrics.timer("board.paint");
+    private static final Font DEBUG_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color DEBUG_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final int DEBUG_LINE_HEIGHT = 13;
+
     private final Game game;
-    
+    private final FrameStats frameStats = new FrameStats("board.frame");
+    private final TrailBuffer trailBuffer = new TrailBuffer();
+    private Rectangle[] overlays = new Rectangle[0];
+    private Color[] overlayColors = new Color[0];
+    private long bufferNanos;
+    private boolean debugOverlay;
+    private final Rectangle debugArea = new Rectangle();
+
     public Board(Game game) {
         this.game = game;
+        game.setPublishingRenderState(true);
         setPreferredSize(new Dimension(game.getMaxWidth()+5, game.getMaxHeight()+5));
     }
-    
+
+    /**
+     * Brings the back buffer up to date with the state the game published last and repaints
+     * the changed areas. The game is not locked, so it can keep ticking while the board draws.
+     *
+     * @param interpolation how far the simulation is between its last tick and the next one.
+     */
+    @Override
+    public void render(double interpolation) {
+        long bufferStart = System.nanoTime();
+        RenderState state = game.getRenderState();
+        if (trailBuffer.update(state, getBackground())) {
+            repaint();
+        } else if (!trailBuffer.getDirty().isEmpty()) {
+            repaint(trailBuffer.getDirty());
+        }
+        int count = state.getPlayerCount();
+        if (overlays.length != count) {
+            overlays = new Rectangle[count];
+            overlayColors = new Color[count];
+            for (int i = 0; i < count; i++) {
+                overlays[i] = new Rectangle();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Rectangle overlay = overlays[i];
+            if (!overlay.isEmpty()) {
+                repaint(overlay);
+            }
+            TrailBuffer.lastMove(overlay, state, i, interpolation);
+            overlayColors[i] = state.getColor(i);
+            repaint(overlay);
+        }
+        if (debugOverlay) {
+            repaint(debugArea);
+        }
+        bufferNanos += System.nanoTime() - bufferStart;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
         super.paintComponent(g);
-        //updateLevel(game.getCurrentLevel());
-        for (Player player : game.getPlayers()) {
-            drawMotorcycle(g, player.getMotorcycle());
-            for(Trail trail : player.getMotorcycle().getTrails()) {
-                drawTrail(g, trail);
+        if (trailBuffer.getImage() != null) {
+            g.drawImage(trailBuffer.getImage(), 0, 0, null);
+        }
+        for (int i = 0; i < overlays.length; i++) {
+            if (!overlays[i].isEmpty()) {
+                g.setColor(overlayColors[i]);
+                g.fillRect(overlays[i].x, overlays[i].y, overlays[i].width, overlays[i].height);
             }
         }
+        if (debugOverlay) {
+            drawDebugOverlay(g, debugArea);
+        }
+        long paintNanos = System.nanoTime() - paintStart;
+        frameStats.recordPaint(paintNanos + bufferNanos);
+        PAINT_TIME.record(paintNanos);
+        bufferNanos = 0;
     }
-    
+
     /**
-     * Draw a motorcycle on the board.
-     * 
-     * @param g         the graphics context.
-     * @param motorcycle the motorcycle to draw.
+     * Draws the current metrics over the top left corner of a board.
+     *
+     * @param g    the graphics context of the board.
+     * @param area set to the area the overlay covers.
      */
-    private void drawMotorcycle(Graphics g, Motorcycle motorcycle) {
-        g.setColor(motorcycle.getTrailColor());
-        Point pos = motorcycle.getPosition();
-        g.fillRect(pos.x, pos.y, 10, 10);
+    static void drawDebugOverlay(Graphics g, Rectangle area) {
+        List<String> lines = Metrics.report();
+        g.setFont(DEBUG_FONT);
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, g.getFontMetrics().stringWidth(line));
+        }
+        area.setBounds(0, 0, width + 10, lines.size() * DEBUG_LINE_HEIGHT + 8);
+        g.setColor(DEBUG_BACKGROUND);
+        g.fillRect(area.x, area.y, area.width, area.height);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.size(); i++) {
+            g.drawString(lines.get(i), 5, (i + 1) * DEBUG_LINE_HEIGHT);
+        }
     }
-    
-    /**
-     * Draw a trail on the board.
-     * 
-     * @param g     the graphics context.
-     * @param trail the trail to draw.
-     */
-    private void drawTrail(Graphics g, Trail trail) {
-        g.setColor(trail.getColor());
-        Point pos = trail.getPosition();
-        g.fillRect(pos.x, pos.y, 10, 10);
+
+    @Override
+    public void setDebugOverlay(boolean debugOverlay) {
+        this.debugOverlay = debugOverlay;
+        repaint();
+    }
+
+    @Override
+    public boolean isDebugOverlay() {
+        return debugOverlay;
     }
-    
+
+    @Override
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
     @Override
     public void setSize(int width, int height) {
-        this.setPreferredSize(new Dimension(width, height)); 
+        this.setPreferredSize(new Dimension(width, height));
         revalidate();
         this.repaint();
     }
-    
+
     /**
      * Update the current level of the game.
-     * 
+     *
      * @param level the current level.
      */
+    @Override
     public void updateLevel(Level level) {
-        setPreferredSize(new Dimension(level.getScreenSize()));
+        setPreferredSize(level.getScreenSize());
         revalidate();
         repaint();
     }
+
+    @Override
+    public Component getComponent() {
+        return this;
+    }
 }
@@ -0,0 +1,211 @@
+package view;
+
+import java.awt.Canvas;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+import javax.swing.UIManager;
+import model.Game;
+import model.Level;
+import model.RenderState;
+
+/**
+ * The CanvasBoard class represents the game board drawn with active rendering. Instead of
+ * asking Swing to repaint, it draws every frame itself on its own thread into a
+ * {@link BufferStrategy} and flips it onto the screen, at a fixed frame rate.
+ * <p>
+ * Trails are kept in a {@link TrailBuffer} backed by an accelerated {@link VolatileImage}, so a
+ * frame is one blit of that image and one rectangle per motorcycle however long the trails
+ * are. Like {@link Board}, the canvas only reads the {@link RenderState} the game publishes,
+ * so drawing never waits for a tick. Frame times and the achieved frame rate are kept in its
+ * {@link FrameStats}.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class CanvasBoard extends Canvas implements GameView, Runnable {
+    public static final int DEFAULT_FRAME_RATE = 120;
+
+    private final Game game;
+    private final DoubleSupplier interpolation;
+    private final FrameStats frameStats = new FrameStats("canvas.frame");
+    private final TrailBuffer trailBuffer = new TrailBuffer(this::createTrailImage);
+    private final Rectangle head = new Rectangle();
+    private final Rectangle debugArea = new Rectangle();
+    private volatile int frameRate = DEFAULT_FRAME_RATE;
+    private volatile boolean debugOverlay;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param game          the game to draw.
+     * @param interpolation tells how far the simulation is between its last tick and the next one.
+     */
+    public CanvasBoard(Game game, DoubleSupplier interpolation) {
+        this.game = game;
+        this.interpolation = interpolation;
+        game.setPublishingRenderState(true);
+        setIgnoreRepaint(true);
+        setBackground(UIManager.getColor("Panel.background"));
+        setPreferredSize(new Dimension(game.getMaxWidth() + 5, game.getMaxHeight() + 5));
+    }
+
+    /**
+     * Starts drawing frames. The canvas must be showing, since its buffers are created on the screen.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        createBufferStrategy(2);
+        running = true;
+        thread = new Thread(this, "render-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops drawing frames and waits for the frame being drawn.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextFrameTime = System.nanoTime();
+        while (running) {
+            long frameNanos = TimeUnit.SECONDS.toNanos(1) / frameRate;
+            render(interpolation.getAsDouble());
+            nextFrameTime += frameNanos;
+            long now = System.nanoTime();
+            if (now - nextFrameTime > frameNanos) {
+                nextFrameTime = now;
+            }
+            LockSupport.parkNanos(nextFrameTime - now);
+        }
+    }
+
+    /**
+     * Draws a frame and shows it right away. Called on the canvas' own thread.
+     *
+     * @param interpolation how far the simulation is between its last tick and the next one.
+     */
+    @Override
+    public void render(double interpolation) {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        long frameStart = System.nanoTime();
+        RenderState state = game.getRenderState();
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    drawFrame(g, state, interpolation);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        frameStats.recordPaint(System.nanoTime() - frameStart);
+    }
+
+    private void drawFrame(Graphics g, RenderState state, double interpolation) {
+        if (trailBuffer.getImage() instanceof VolatileImage accelerated
+                && accelerated.validate(getGraphicsConfiguration()) != VolatileImage.IMAGE_OK) {
+            trailBuffer.invalidate();
+        }
+        trailBuffer.update(state, getBackground());
+        Image image = trailBuffer.getImage();
+        if (getWidth() > image.getWidth(null) || getHeight() > image.getHeight(null)) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        g.drawImage(image, 0, 0, null);
+        if (image instanceof VolatileImage accelerated && accelerated.contentsLost()) {
+            trailBuffer.invalidate();
+        }
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            TrailBuffer.lastMove(head, state, i, interpolation);
+            g.setColor(state.getColor(i));
+            g.fillRect(head.x, head.y, head.width, head.height);
+        }
+        if (debugOverlay) {
+            Board.drawDebugOverlay(g, debugArea);
+        }
+    }
+
+    /**
+     * Creates the image the trails are kept in: an accelerated image once the canvas is on a
+     * screen, a plain one before.
+     */
+    private Image createTrailImage(int width, int height) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (configuration == null) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return configuration.createCompatibleVolatileImage(width, height);
+    }
+
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    public void setFrameRate(int frameRate) {
+        this.frameRate = Math.max(1, frameRate);
+    }
+
+    @Override
+    public void setDebugOverlay(boolean debugOverlay) {
+        this.debugOverlay = debugOverlay;
+    }
+
+    @Override
+    public boolean isDebugOverlay() {
+        return debugOverlay;
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        setPreferredSize(new Dimension(width, height));
+        invalidate();
+    }
+
+    @Override
+    public void updateLevel(Level level) {
+        setPreferredSize(level.getScreenSize());
+        invalidate();
+    }
+
+    @Override
+    public Component getComponent() {
+        return this;
+    }
+}
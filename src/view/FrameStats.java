@@ -0,0 +1,98 @@
+package view;
+
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * The FrameStats class keeps running averages of where frame time is spent.
+ * Layout and paint times are tracked separately so that the cost of relaying out
+ * the window can be told apart from the cost of drawing the board. Paint times are
+ * also kept in a {@link Metrics} timer for their percentiles, and the frames painted
+ * in the last second give the achieved frame rate.
+ *
+ * @author Isroilbek Jamolov
+ */
+public class FrameStats {
+    private static final double SMOOTHING = 0.1;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Histogram frameTimes;
+    private double averageLayoutNanos;
+    private double averagePaintNanos;
+    private long layoutCount;
+    private long paintCount;
+    private long secondStart;
+    private int framesThisSecond;
+    private double framesPerSecond;
+
+    /**
+     * @param timerName the name of the {@link Metrics} timer frame times are recorded in.
+     */
+    public FrameStats(String timerName) {
+        frameTimes = Metrics.timer(timerName);
+    }
+
+    /**
+     * Records the time spent laying out the window for one frame.
+     *
+     * @param nanos the layout time in nanoseconds.
+     */
+    public synchronized void recordLayout(long nanos) {
+        averageLayoutNanos = layoutCount == 0 ? nanos : averageLayoutNanos + SMOOTHING * (nanos - averageLayoutNanos);
+        layoutCount++;
+    }
+
+    /**
+     * Records the time spent painting the board for one frame.
+     *
+     * @param nanos the paint time in nanoseconds.
+     */
+    public synchronized void recordPaint(long nanos) {
+        averagePaintNanos = paintCount == 0 ? nanos : averagePaintNanos + SMOOTHING * (nanos - averagePaintNanos);
+        paintCount++;
+        frameTimes.record(nanos);
+        long now = System.nanoTime();
+        if (paintCount == 1) {
+            secondStart = now;
+        }
+        framesThisSecond++;
+        if (now - secondStart >= NANOS_PER_SECOND) {
+            framesPerSecond = framesThisSecond * (double) NANOS_PER_SECOND / (now - secondStart);
+            framesThisSecond = 0;
+            secondStart = now;
+        }
+    }
+
+    public synchronized double getAverageLayoutMillis() {
+        return averageLayoutNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized double getAveragePaintMillis() {
+        return averagePaintNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the number of frames painted per second, measured over the last full second.
+     */
+    public synchronized double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the paint time below which the given share of frames stayed, in milliseconds.
+     */
+    public double getPaintPercentileMillis(double percentile) {
+        return frameTimes.getPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    public synchronized long getLayoutCount() {
+        return layoutCount;
+    }
+
+    public synchronized long getPaintCount() {
+        return paintCount;
+    }
+}
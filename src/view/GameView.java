@@ -0,0 +1,44 @@
+package view;
+
+import java.awt.Component;
+import model.Level;
+
+/**
+ * The GameView interface represents a component that draws the game board. {@link Board}
+ * paints through Swing on the event dispatch thread, {@link CanvasBoard} draws itself on its
+ * own thread at a fixed frame rate.
+ *
+ * @author Isroilbek Jamolov
+ */
+public interface GameView {
+
+    /**
+     * Brings the view up to date with the state the game published last.
+     *
+     * @param interpolation how far the simulation is between its last tick and the next one.
+     */
+    void render(double interpolation);
+
+    /**
+     * Resizes the view for a level.
+     *
+     * @param level the current level.
+     */
+    void updateLevel(Level level);
+
+    /**
+     * Shows or hides the debug overlay.
+     *
+     * @param debugOverlay true to show the metrics over the board.
+     */
+    void setDebugOverlay(boolean debugOverlay);
+
+    boolean isDebugOverlay();
+
+    FrameStats getFrameStats();
+
+    /**
+     * @return the component to add to the window.
+     */
+    Component getComponent();
+}
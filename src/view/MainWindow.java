@@ -2,12 +2,18 @@ package view;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
-import javax.swing.Timer;
 import controller.GameController;
+import controller.GameLoop;
 import controller.InputHandler;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Point;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JColorChooser;
 import javax.swing.JLabel;
@@ -15,11 +21,24 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import metrics.Metrics;
 import model.Game;
+import model.InputLatency;
 import model.Level;
 import model.Motorcycle;
 import model.Player;
-import persistence.Database;
+import model.SearchBot;
+import model.SimpleBot;
+import persistence.Leaderboard;
+import persistence.LeaderboardEntry;
+import persistence.LevelStats;
+import persistence.MatchHistory;
+import persistence.MatchHistoryQueue;
+import persistence.MatchRecord;
+import persistence.ScoreStore;
+import persistence.ScoreWriteQueue;
+import replay.ReplayRecorder;
 
 /**
  * The MainWindow class represents the main window of the game.
@@ -29,16 +48,53 @@ import persistence.Database;
  * @author Isroilbek Jamolov
  */
 public class MainWindow extends JFrame {
+    private static final int MAX_PLAYERS = 64;
+    private static final int MATCH_HISTORY_PAGE_SIZE = 10;
+    private static final long STATUS_REFRESH_NANOS = 250_000_000L;
 
     private final GameController gameController;
-    private final Board board;
-    private Timer gameTimer;
+    private final GameView board;
+    private final CanvasBoard canvasBoard;
+    private GameLoop gameLoop;
     private final JLabel levelLabel;
     private final JLabel timerLabel;
+    private final JLabel frameLabel;
+    private final Leaderboard leaderboard;
+    private final MatchHistory matchHistory;
+    private int layoutWidth;
+    private int layoutHeight;
+    private long statusRefreshedAt = System.nanoTime() - STATUS_REFRESH_NANOS;
 
     public MainWindow() {
         Game gameInstance = new Game();
-        board = new Board(gameInstance);
+        ScoreStore scoreStore = ScoreStore.open();
+        ScoreWriteQueue scoreQueue = new ScoreWriteQueue(scoreStore, 256, Paths.get("../../pending_scores.txt"));
+        scoreQueue.start();
+        leaderboard = new Leaderboard(scoreStore, scoreQueue);
+        leaderboard.warmUp();
+        gameInstance.setLeaderboard(leaderboard);
+        if (scoreStore instanceof MatchHistory history) {
+            matchHistory = history;
+            MatchHistoryQueue matchQueue = new MatchHistoryQueue(history, 1024);
+            matchQueue.start();
+            gameInstance.setMatchHistory(matchQueue);
+        } else {
+            matchHistory = null;
+        }
+        Metrics.registerMBean();
+        Metrics.startLogging(Integer.getInteger("tron.metricsLog", 0));
+        String replayDir = System.getProperty("tron.replayDir");
+        if (replayDir != null) {
+            gameInstance.setTickListener(new ReplayRecorder(Paths.get(replayDir)));
+        }
+        if ("canvas".equals(System.getProperty("tron.renderer"))) {
+            canvasBoard = new CanvasBoard(gameInstance, () -> gameLoop.getInterpolation());
+            canvasBoard.setFrameRate(Integer.getInteger("tron.frameRate", CanvasBoard.DEFAULT_FRAME_RATE));
+            board = canvasBoard;
+        } else {
+            canvasBoard = null;
+            board = new Board(gameInstance);
+        }
         for (int i = 1; i <= 2; i++) {
             String playerName = JOptionPane.showInputDialog("Please enter the name for Player " + i + ":");
 
@@ -57,18 +113,25 @@ public class MainWindow extends JFrame {
                 }
 
                 Player player = new Player(playerName, playerColor, startPosition, startDirection);
+                if (i == 2 && JOptionPane.showConfirmDialog(null, "Should the computer play " + playerName + "?",
+                        "Player 2", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                    player.setController(new SearchBot(SearchBot.DEFAULT_BUDGET_NANOS, true));
+                }
                 gameInstance.addPlayer(player);
             } else {
                 JOptionPane.showMessageDialog(null, "You must enter a name for Player " + i + ".");
                 i--; 
             }
         }
+        addBots(gameInstance);
         
         JPanel statusPanel = new JPanel();
         levelLabel = new JLabel("Level: 1");
         timerLabel = new JLabel("Time: 0");
+        frameLabel = new JLabel();
         statusPanel.add(levelLabel);
         statusPanel.add(timerLabel);
+        statusPanel.add(frameLabel);
         statusPanel.setBackground(new Color(245, 245, 245));
         add(statusPanel, BorderLayout.SOUTH);
 
@@ -76,52 +139,172 @@ public class MainWindow extends JFrame {
 
         setTitle("Tron Game");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeControllers();
+            }
 
-        add(board);
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closeControllers();
+            }
+        });
+
+        add(board.getComponent());
 
         InputHandler inputHandler = new InputHandler(gameController);
         addKeyListener(inputHandler);
 
-        board.addKeyListener(inputHandler);
-        board.setFocusable(true);
+        board.getComponent().addKeyListener(inputHandler);
+        board.getComponent().setFocusable(true);
 
         setupGameLoop();
         createMenuBar();
         
         pack();
+        layoutWidth = gameInstance.getMaxWidth();
+        layoutHeight = gameInstance.getMaxHeight();
         
         setResizable(false);
 
         setVisible(true);
+        if (canvasBoard != null) {
+            canvasBoard.start();
+        }
+    }
+
+    /**
+     * Asks for the number of computer controlled players and adds them to the game.
+     * With three or more players every motorcycle starts in its own cell of a grid laid over
+     * the arena, away from the obstacles, see {@link Game#selectLevel(int)}.
+     * 
+     * @param game the game to add the bots to.
+     */
+    private void addBots(Game game) {
+        int maxBots = MAX_PLAYERS - game.getPlayers().size();
+        String answer = JOptionPane.showInputDialog("How many computer players (0-" + maxBots + ")?", "0");
+        int botCount = 0;
+        try {
+            botCount = answer == null ? 0 : Math.max(0, Math.min(maxBots, Integer.parseInt(answer.trim())));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of computer players: " + e.getMessage());
+        }
+        for (int i = 0; i < botCount; i++) {
+            Color botColor = Color.getHSBColor((float) i / botCount, 0.8f, 0.9f);
+            Player bot = new Player("Bot " + (i + 1), botColor, new Point(0, 0), Motorcycle.Direction.RIGHT);
+            bot.setController(new SimpleBot(System.nanoTime() + i, 0.02));
+            game.addPlayer(bot);
+        }
+        game.reset();
+    }
+
+    /**
+     * Stops the threads of the computer players, so no search keeps running once the window is gone.
+     */
+    private void closeControllers() {
+        Game game = gameController.getGame();
+        synchronized (game) {
+            for (Player player : game.getPlayers()) {
+                player.setController(null);
+            }
+        }
     }
 
     /**
      * Set up the game loop for continuous updates.
      */
     private void setupGameLoop() {
-        gameController.getGame().getCurrentLevel().startLevel();
-        gameTimer = new Timer(1, e -> {
-            if (!gameController.getGame().isGameOver()) {
-                gameController.updateGame();
-                board.setSize(gameController.getGame().getMaxWidth(), gameController.getGame().getMaxHeight());
-                this.pack();
-                board.repaint();
-                updateStatusPanel();
-            } else {
-                gameTimer.stop();
-            }
-        });
+        gameController.getGame().startLevelTimer();
+        gameLoop = new GameLoop(gameController, this::renderFrame, this::showEndGameDialog);
+        applyTickRate();
+        gameLoop.start();
+    }
 
-        gameTimer.start();
+    /**
+     * Runs the game loop at the tick rate of the current level, unless a tick rate for
+     * every level is set with the {@code tron.tickRate} system property.
+     */
+    private void applyTickRate() {
+        gameLoop.setTickRate(Integer.getInteger("tron.tickRate", gameController.getGame().getCurrentLevel().getTickRate()));
+    }
+
+    /**
+     * Render a frame of the game.
+     * The window is only laid out again when the arena size changes on a new level.
+     * With {@code -Dtron.renderer=canvas} the board draws its frames on its own thread,
+     * so only the layout and the status panel are updated here.
+     */
+    private void renderFrame() {
+        long layoutStart = System.nanoTime();
+        Level level = gameController.getGame().getRenderState().getLevel();
+        if (level.getWidth() != layoutWidth || level.getHeight() != layoutHeight) {
+            layoutWidth = level.getWidth();
+            layoutHeight = level.getHeight();
+            board.getComponent().setSize(layoutWidth, layoutHeight);
+            pack();
+        }
+        board.getFrameStats().recordLayout(System.nanoTime() - layoutStart);
+        if (canvasBoard == null) {
+            gameController.renderGame(gameLoop.getInterpolation());
+        }
+        updateStatusPanel();
+    }
+
+    /**
+     * Shows an end game dialog with the winner's name.
+     */
+    private void showEndGameDialog() {
+        Game game = gameController.getGame();
+        saveInputLog(game);
+        Player winner = game.getWinner();
+        String result = winner == null ? "It's a draw! " : winner.getName() + " wins! ";
+        int option = JOptionPane.showConfirmDialog(null, result + "Do you want to continue?", "End of the Game", 
+                JOptionPane.YES_NO_OPTION);
+        
+        synchronized (game) {
+            game.finishRound(option == JOptionPane.YES_OPTION);
+        }
+        applyTickRate();
     }
     
     /**
-     * Update the status panel with the current level and timer.
+     * Saves the turns of the round that just ended when the {@code tron.inputLogDir}
+     * system property names a directory, so the round can be replayed.
+     */
+    private void saveInputLog(Game game) {
+        String directory = System.getProperty("tron.inputLogDir");
+        if (directory == null) {
+            return;
+        }
+        try {
+            synchronized (game) {
+                game.getInputLog().write(Paths.get(directory, "round-" + System.currentTimeMillis() + ".log"));
+            }
+        } catch (IOException e) {
+            System.out.println("saveInputLog error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update the status panel with the current level, timer and frame stats.
+     * A label whose text changes lays the window out again, so the panel is only
+     * refreshed a few times a second rather than on every frame.
      */
     private void updateStatusPanel() {
+        long now = System.nanoTime();
+        if (now - statusRefreshedAt < STATUS_REFRESH_NANOS) {
+            return;
+        }
+        statusRefreshedAt = now;
         levelLabel.setText("Level: " + (gameController.getGame().getCurrentLevelIndex() + 1));
-        long elapsedTime = gameController.getGame().getCurrentLevel().getLevelTime();
+        long elapsedTime = gameController.getGame().getLevelTime();
         timerLabel.setText("Time: " + elapsedTime / 1000 + "s");
+        FrameStats frameStats = board.getFrameStats();
+        InputLatency inputLatency = gameController.getGame().getInputLatency();
+        frameLabel.setText(String.format("FPS: %.0f Layout: %.2fms Paint: %.2fms (p99 %.2fms) Input: %.1fms (max %.1fms)", 
+                frameStats.getFramesPerSecond(), frameStats.getAverageLayoutMillis(), frameStats.getAveragePaintMillis(),
+                frameStats.getPaintPercentileMillis(99), inputLatency.getAverageMillis(), inputLatency.getMaxMillis()));
     }
 
     /**
@@ -134,10 +317,14 @@ public class MainWindow extends JFrame {
         JMenuItem leaderboardItem = new JMenuItem("Show Leaderboard");
         leaderboardItem.addActionListener(e -> showLeaderboard());
         
+        JMenuItem matchHistoryItem = new JMenuItem("Show Match History");
+        matchHistoryItem.addActionListener(e -> showMatchHistory(Long.MAX_VALUE));
+        
         JMenuItem restartGameItem = new JMenuItem("Restart Game");
         restartGameItem.addActionListener(e -> restartGame());
         
         menu.add(leaderboardItem);
+        menu.add(matchHistoryItem);
         menu.add(restartGameItem);
         menuBar.add(menu);
         setJMenuBar(menuBar);
@@ -149,29 +336,80 @@ public class MainWindow extends JFrame {
     private void restartGame() {
         Game game = gameController.getGame();
         
-        game.reset();
-        game.start();
-        gameTimer.restart();
+        synchronized (game) {
+            game.reset();
+            game.start();
+        }
         
         Level currentLevel = game.getCurrentLevel();
         board.updateLevel(currentLevel);
         pack();
+        layoutWidth = currentLevel.getWidth();
+        layoutHeight = currentLevel.getHeight();
         
-        board.repaint();
-        
-        gameController.getGame().getCurrentLevel().startLevel();
+        gameController.getGame().startLevelTimer();
+        applyTickRate();
     }
 
     /**
-     * Show the leader-board by retrieving and displaying high scores.
+     * Show the leader-board by displaying the high scores kept in memory.
      */
     public void showLeaderboard() {
-        Database db = new Database();
-        List<String> highScores = db.getTopHighScores();
+        List<String> highScores = new ArrayList<>();
+        for (LeaderboardEntry entry : leaderboard.getTop(10)) {
+            highScores.add(entry.toString());
+        }
         
         JOptionPane.showMessageDialog(null, String.join("\n", highScores), "Leaderboard", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * Show a page of Player 1's matches, newest first, below the statistics of every level.
+     * The history is read on a background thread, so the game keeps running while the
+     * database answers.
+     *
+     * @param beforeId only matches older than this one are shown; {@link Long#MAX_VALUE} for the newest.
+     */
+    private void showMatchHistory(long beforeId) {
+        if (matchHistory == null) {
+            JOptionPane.showMessageDialog(null, "The match history is kept in the MySQL database, which is not configured.",
+                    "Match History", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String playerName = gameController.getGame().getPlayers().get(0).getName();
+        Thread reader = new Thread(() -> {
+            List<String> lines = new ArrayList<>();
+            List<MatchRecord> matches;
+            try {
+                if (beforeId == Long.MAX_VALUE) {
+                    for (LevelStats stats : matchHistory.getLevelStats()) {
+                        lines.add(stats.toString());
+                    }
+                    lines.add("");
+                }
+                matches = matchHistory.getPlayerMatches(playerName, beforeId, MATCH_HISTORY_PAGE_SIZE);
+            } catch (SQLException e) {
+                System.out.println("showMatchHistory error: " + e.getMessage());
+                return;
+            }
+            lines.add(playerName + "'s matches:");
+            for (MatchRecord match : matches) {
+                lines.add(match.toString());
+            }
+            SwingUtilities.invokeLater(() -> {
+                boolean more = matches.size() == MATCH_HISTORY_PAGE_SIZE;
+                Object[] options = more ? new Object[] {"Older", "Close"} : new Object[] {"Close"};
+                int choice = JOptionPane.showOptionDialog(null, String.join("\n", lines), "Match History",
+                        JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+                if (more && choice == 0) {
+                    showMatchHistory(matches.get(matches.size() - 1).getId());
+                }
+            });
+        }, "match-history-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
     /**
      * Entry point for starting the game.
      * 
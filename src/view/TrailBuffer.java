@@ -0,0 +1,234 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import model.Level;
+import model.RenderState;
+
+/**
+ * The TrailBuffer class represents an image of the obstacles and trails of a round that is
+ * kept up to date incrementally. Every update only draws the cells added since the previous
+ * one, a run of cells per segment in the color of its trail, so the cost of a frame does not
+ * grow with the length of the trails. The image is drawn again from scratch when a trail is
+ * reset, the level changes or the image is lost.
+ * <p>
+ * The image holds each trail up to the position before the motorcycle's last move; views draw
+ * the last move on top so it can follow the interpolated motorcycle.
+ *
+ * @author Isroilbek Jamolov
+ */
+class TrailBuffer {
+    static final int CELL_SIZE = 10;
+    private static final Color OBSTACLE_COLOR = Color.DARK_GRAY;
+
+    /**
+     * The ImageFactory interface creates the image the trails are drawn into.
+     */
+    interface ImageFactory {
+        Image create(int width, int height);
+    }
+
+    private final ImageFactory imageFactory;
+    private Image image;
+    private int imageWidth;
+    private int imageHeight;
+    private Level drawnLevel;
+    private int[] drawnGeneration = new int[0];
+    private int[] drawnSegment = new int[0];
+    private int[] drawnX = new int[0];
+    private int[] drawnY = new int[0];
+    private final Rectangle run = new Rectangle();
+    private final Rectangle dirty = new Rectangle();
+
+    /**
+     * Creates a buffer that draws into plain {@link BufferedImage}s.
+     */
+    TrailBuffer() {
+        this((width, height) -> new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+
+    /**
+     * @param imageFactory creates the image the trails are drawn into.
+     */
+    TrailBuffer(ImageFactory imageFactory) {
+        this.imageFactory = imageFactory;
+    }
+
+    /**
+     * Draws the cells the state adds to the image.
+     *
+     * @param state      the state to draw.
+     * @param background the color of the arena.
+     * @return true if the whole image was drawn again, false if only {@link #getDirty()} changed.
+     */
+    boolean update(RenderState state, Color background) {
+        dirty.setBounds(0, 0, 0, 0);
+        if (needsRebuild(state)) {
+            rebuild(state, background);
+            return true;
+        }
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            drawNewCells(g, state, i);
+        }
+        g.dispose();
+        return false;
+    }
+
+    /**
+     * Forgets the image, so the next update draws everything again. Used when the contents of
+     * an accelerated image are lost.
+     */
+    void invalidate() {
+        image = null;
+    }
+
+    Image getImage() {
+        return image;
+    }
+
+    /**
+     * @return the area covered by the cells drawn in the last update; empty if there were none.
+     */
+    Rectangle getDirty() {
+        return dirty;
+    }
+
+    /**
+     * Checks if the image no longer matches the arena or the trails drawn into it.
+     */
+    private boolean needsRebuild(RenderState state) {
+        Level level = state.getLevel();
+        if (image == null || state.getPlayerCount() != drawnSegment.length || level != drawnLevel
+                || imageWidth != level.getWidth() + CELL_SIZE || imageHeight != level.getHeight() + CELL_SIZE) {
+            return true;
+        }
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            if (state.getGeneration(i) != drawnGeneration[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the obstacles and every trail into an empty image, allocating it if the arena changed.
+     */
+    private void rebuild(RenderState state, Color background) {
+        Level level = state.getLevel();
+        int width = level.getWidth() + CELL_SIZE;
+        int height = level.getHeight() + CELL_SIZE;
+        if (image == null || imageWidth != width || imageHeight != height) {
+            image = imageFactory.create(width, height);
+            imageWidth = width;
+            imageHeight = height;
+        }
+        int count = state.getPlayerCount();
+        if (drawnSegment.length != count) {
+            drawnGeneration = new int[count];
+            drawnSegment = new int[count];
+            drawnX = new int[count];
+            drawnY = new int[count];
+        }
+
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(OBSTACLE_COLOR);
+        for (int i = 0; i < level.getObstacleCount(); i++) {
+            g.fillRect(level.getObstacleX(i), level.getObstacleY(i), level.getObstacleWidth(i), level.getObstacleHeight(i));
+        }
+        drawnLevel = level;
+        for (int i = 0; i < count; i++) {
+            drawnGeneration[i] = state.getGeneration(i);
+            drawnSegment[i] = -1;
+            drawNewCells(g, state, i);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draws the part of a motorcycle's trail that is not in the image yet, up to the position
+     * before its last move, and adds the area to {@link #dirty}.
+     */
+    private void drawNewCells(Graphics2D g, RenderState state, int index) {
+        int last = state.getSegmentCount(index) - 1;
+        if (last < 0) {
+            return;
+        }
+        int targetX = state.getPreviousX(index);
+        int targetY = state.getPreviousY(index);
+        int segment = drawnSegment[index];
+        int fromX = segment < 0 ? state.getStartX(index, 0) : drawnX[index];
+        int fromY = segment < 0 ? state.getStartY(index, 0) : drawnY[index];
+        segment = Math.max(segment, 0);
+        if (segment == last && fromX == targetX && fromY == targetY) {
+            return;
+        }
+
+        g.setColor(state.getColor(index));
+        while (segment < last) {
+            fill(g, fromX, fromY, state.getEndX(index, segment), state.getEndY(index, segment));
+            segment++;
+            fromX = state.getStartX(index, segment);
+            fromY = state.getStartY(index, segment);
+        }
+        fill(g, fromX, fromY, targetX, targetY);
+
+        drawnSegment[index] = last;
+        drawnX[index] = targetX;
+        drawnY[index] = targetY;
+    }
+
+    /**
+     * Fills the cells covered by a straight run between two points and adds them to {@link #dirty}.
+     */
+    private void fill(Graphics g, int fromX, int fromY, int toX, int toY) {
+        cellRun(run, fromX, fromY, toX, toY);
+        g.fillRect(run.x, run.y, run.width, run.height);
+        if (dirty.isEmpty()) {
+            dirty.setBounds(run);
+        } else {
+            dirty.add(run);
+        }
+    }
+
+    /**
+     * Sets a rectangle to the area covered by the cells of a straight run between two points.
+     */
+    static void cellRun(Rectangle area, int fromX, int fromY, int toX, int toY) {
+        area.setBounds(Math.min(fromX, toX), Math.min(fromY, toY),
+                Math.abs(toX - fromX) + CELL_SIZE, Math.abs(toY - fromY) + CELL_SIZE);
+    }
+
+    /**
+     * Sets a rectangle to the area covered by a motorcycle's last move, drawn up to where the
+     * motorcycle is between its last two simulation ticks.
+     *
+     * @param area          the rectangle to set.
+     * @param state         the state to draw.
+     * @param index         the index of the motorcycle's player.
+     * @param interpolation how far the simulation is towards the next tick.
+     */
+    static void lastMove(Rectangle area, RenderState state, int index, double interpolation) {
+        cellRun(area, state.getPreviousX(index), state.getPreviousY(index),
+                interpolate(state.getPreviousX(index), state.getX(index), interpolation),
+                interpolate(state.getPreviousY(index), state.getY(index), interpolation));
+    }
+
+    /**
+     * Computes where a coordinate of a motorcycle is drawn between its last two simulation ticks.
+     *
+     * @param previous      the coordinate before the last tick.
+     * @param current       the coordinate after the last tick.
+     * @param interpolation how far the simulation is towards the next tick.
+     * @return the interpolated coordinate.
+     */
+    private static int interpolate(int previous, int current, double interpolation) {
+        return (int) Math.round(previous + (current - previous) * interpolation);
+    }
+}